@@ -0,0 +1,25 @@
+#!/bin/bash
+
+# Starts a local single-node MongoDB replica set in Docker.
+# Change streams (instant sanctions list reload on every node) need a
+# replica set; a standalone mongod only supports the polling fallback.
+#
+# Usage: ./scripts/start-mongo-replset.sh
+# Then:  export MONGODB_URI="mongodb://localhost:27017/passport_screening?replicaSet=rs0&directConnection=true"
+
+CONTAINER=${MONGO_CONTAINER:-passport-mongo-rs}
+
+echo "Starting MongoDB replica set rs0 in container $CONTAINER..."
+docker run -d --name "$CONTAINER" -p 27017:27017 mongo:6.0 --replSet rs0 --bind_ip_all || exit 1
+
+echo "Waiting for mongod..."
+until docker exec "$CONTAINER" mongosh --quiet --eval "db.adminCommand('ping')" &> /dev/null; do
+    sleep 1
+done
+
+docker exec "$CONTAINER" mongosh --quiet --eval \
+    "try { rs.status().ok } catch (e) { rs.initiate({_id: 'rs0', members: [{_id: 0, host: 'localhost:27017'}]}).ok }"
+
+echo ""
+echo "✓ Replica set rs0 ready"
+echo "  MONGODB_URI=mongodb://localhost:27017/passport_screening?replicaSet=rs0&directConnection=true"
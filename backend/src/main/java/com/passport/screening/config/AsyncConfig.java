@@ -0,0 +1,132 @@
+package com.passport.screening.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded executors for screening requests and OCR pages.
+ * Requests run asynchronously so the servlet container can report client
+ * disconnects / timeouts while OCR is still in progress.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${app.screening.worker-threads:8}")
+    private int workerThreads;
+
+    @Value("${app.screening.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.ocr.page-threads:2}")
+    private int pageThreads;
+
+    @Value("${app.ocr.page-queue-capacity:64}")
+    private int pageQueueCapacity;
+
+    @Value("${app.ocr.hedge-threads:8}")
+    private int hedgeThreads;
+
+    @Value("${app.ocr.hedge-queue-capacity:32}")
+    private int hedgeQueueCapacity;
+
+    @Value("${app.sanctions.write-threads:2}")
+    private int sanctionsWriteThreads;
+
+    @Value("${app.sanctions.source-threads:3}")
+    private int sanctionsSourceThreads;
+
+    @Value("${app.screening.history.rescreen-threads:4}")
+    private int rescreenThreads;
+
+    @Bean(name = "screeningExecutor")
+    public ThreadPoolTaskExecutor screeningExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("screening-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Shared executor for per-page OCR of multi-page documents.
+     * Sized to the Tesseract engine pool so queued pages wait here rather
+     * than holding a thread while blocked on an engine.
+     */
+    @Bean(name = "ocrPageExecutor")
+    public ThreadPoolTaskExecutor ocrPageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pageThreads);
+        executor.setMaxPoolSize(pageThreads);
+        executor.setQueueCapacity(pageQueueCapacity);
+        executor.setThreadNamePrefix("ocr-page-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs OCR provider attempts for OCRProviderRegistry; a request can have
+     * a cheap provider and its hedge running here at the same time.
+     */
+    @Bean(name = "ocrHedgeExecutor")
+    public ThreadPoolTaskExecutor ocrHedgeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hedgeThreads);
+        executor.setMaxPoolSize(hedgeThreads);
+        executor.setQueueCapacity(hedgeQueueCapacity);
+        executor.setThreadNamePrefix("ocr-provider-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Bulk-write tasks of a sanctions list refresh; they drain the parser's
+     * batch queue into the staging collection while parsing continues.
+     */
+    @Bean(name = "sanctionsWriteExecutor")
+    public ThreadPoolTaskExecutor sanctionsWriteExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sanctionsWriteThreads);
+        executor.setMaxPoolSize(sanctionsWriteThreads);
+        executor.setQueueCapacity(sanctionsWriteThreads);
+        executor.setThreadNamePrefix("sanctions-write-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fetches and parses the sanctions sources of a refresh in parallel
+     */
+    @Bean(name = "sanctionsSourceExecutor")
+    public ThreadPoolTaskExecutor sanctionsSourceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sanctionsSourceThreads);
+        executor.setMaxPoolSize(sanctionsSourceThreads);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("sanctions-source-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Re-screens batches of the screening history against list additions.
+     * When all threads are busy the submitting thread runs the batch itself,
+     * which also stops it from reading further ahead in the history.
+     */
+    @Bean(name = "rescreenExecutor")
+    public ThreadPoolTaskExecutor rescreenExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(rescreenThreads);
+        executor.setMaxPoolSize(rescreenThreads);
+        executor.setQueueCapacity(rescreenThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("rescreen-");
+        executor.initialize();
+        return executor;
+    }
+}
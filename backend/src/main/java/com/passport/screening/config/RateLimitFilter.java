@@ -0,0 +1,161 @@
+package com.passport.screening.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token-bucket rate limiting.
+ * Runs right after JwtAuthenticationFilter so authenticated callers are keyed
+ * by their token subject; everyone else is keyed by client IP, which is the
+ * X-Forwarded-For address only when the request came through a trusted proxy
+ * (server.forward-headers-strategy). Each endpoint class has its own bucket
+ * size and refill rate.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    enum EndpointClass { AUTH, OCR, INTERNAL, DEFAULT }
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Value("${app.rate-limit.auth.capacity:20}")
+    private double authCapacity;
+
+    @Value("${app.rate-limit.auth.refill-per-second:5}")
+    private double authRefillPerSecond;
+
+    @Value("${app.rate-limit.ocr.capacity:5}")
+    private double ocrCapacity;
+
+    @Value("${app.rate-limit.ocr.refill-per-second:0.5}")
+    private double ocrRefillPerSecond;
+
+    @Value("${app.rate-limit.internal.capacity:200}")
+    private double internalCapacity;
+
+    @Value("${app.rate-limit.internal.refill-per-second:100}")
+    private double internalRefillPerSecond;
+
+    @Value("${app.rate-limit.default.capacity:60}")
+    private double defaultCapacity;
+
+    @Value("${app.rate-limit.default.refill-per-second:20}")
+    private double defaultRefillPerSecond;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        EndpointClass endpointClass = classify(request.getServletPath());
+        String key = endpointClass.name() + '|' + clientKey(request);
+
+        // Touched under the map's lock, so eviction cannot drop the bucket between lookup and use
+        TokenBucket bucket = buckets.compute(key, (k, existing) -> {
+            TokenBucket current = existing != null ? existing : newBucket(endpointClass);
+            current.touch();
+            return current;
+        });
+
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            logger.warn("Rate limit exceeded for {} on {}", key, request.getServletPath());
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many requests\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        int evicted = 0;
+        for (String key : buckets.keySet()) {
+            // Re-checked under the lock: a request touching the bucket meanwhile keeps it
+            boolean[] removed = new boolean[1];
+            buckets.computeIfPresent(key, (k, bucket) -> {
+                removed[0] = bucket.getLastAccessNanos() - cutoff < 0;
+                return removed[0] ? null : bucket;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate-limit buckets, {} remaining", evicted, buckets.size());
+        }
+    }
+
+    EndpointClass classify(String path) {
+        if (path == null) {
+            return EndpointClass.DEFAULT;
+        }
+        if (path.startsWith("/auth/login") || path.startsWith("/auth/register")) {
+            return EndpointClass.AUTH;
+        }
+        if (path.startsWith("/screening/check")) {
+            return EndpointClass.OCR;
+        }
+        if (path.startsWith("/internal/")) {
+            return EndpointClass.INTERNAL;
+        }
+        return EndpointClass.DEFAULT;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private TokenBucket newBucket(EndpointClass endpointClass) {
+        switch (endpointClass) {
+            case AUTH:
+                return new TokenBucket(authCapacity, authRefillPerSecond);
+            case OCR:
+                return new TokenBucket(ocrCapacity, ocrRefillPerSecond);
+            case INTERNAL:
+                return new TokenBucket(internalCapacity, internalRefillPerSecond);
+            default:
+                return new TokenBucket(defaultCapacity, defaultRefillPerSecond);
+        }
+    }
+}
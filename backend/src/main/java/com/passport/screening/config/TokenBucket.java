@@ -0,0 +1,71 @@
+package com.passport.screening.config;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket.
+ * Tokens and the last refill time live in one immutable state object that is
+ * swapped with compare-and-set, so concurrent requests never block each other.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+    private final LongSupplier nanoClock;
+    private volatile long lastAccessNanos;
+
+    TokenBucket(double capacity, double refillPerSecond) {
+        this(capacity, refillPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(double capacity, double refillPerSecond, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        this.state = new AtomicReference<>(new State(capacity, now));
+        this.lastAccessNanos = now;
+    }
+
+    /**
+     * Takes one token.
+     * @return 0 if the request may proceed, otherwise nanos until a token is available
+     */
+    long tryConsume() {
+        long now = nanoClock.getAsLong();
+        lastAccessNanos = now;
+        while (true) {
+            State current = state.get();
+            double tokens = Math.min(capacity, current.tokens + (now - current.refilledAtNanos) * refillPerNano);
+            if (tokens < 1d) {
+                return refillPerNano > 0 ? (long) Math.ceil((1d - tokens) / refillPerNano) : Long.MAX_VALUE;
+            }
+            if (state.compareAndSet(current, new State(tokens - 1d, now))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Marks the bucket as in use, so idle eviction keeps it
+     */
+    void touch() {
+        lastAccessNanos = nanoClock.getAsLong();
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    private static final class State {
+        final double tokens;
+        final long refilledAtNanos;
+
+        State(double tokens, long refilledAtNanos) {
+            this.tokens = tokens;
+            this.refilledAtNanos = refilledAtNanos;
+        }
+    }
+}
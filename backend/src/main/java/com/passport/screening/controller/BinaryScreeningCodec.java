@@ -0,0 +1,141 @@
+package com.passport.screening.controller;
+
+import com.passport.screening.service.SanctionsService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length-prefixed binary frames for the internal screening API.
+ *
+ * Every frame is a big-endian u32 body length followed by the body.
+ * Strings use DataOutput modified UTF-8 (u16 length + bytes).
+ *
+ * Request body:
+ *   u8  type            1 = NAME, 2 = DOCUMENT
+ *   u32 correlationId   echoed back in the response
+ *   NAME:     utf name
+ *   DOCUMENT: utf fileName, u32 length, bytes
+ *
+ * Response body:
+ *   u32 correlationId
+ *   u8  status          0 = COMPLETE, 1 = PARTIAL, 2 = TIMEOUT, 3 = ERROR, 4 = BUSY,
+ *                       5 = REJECTED (document too large, unsupported or unreadable)
+ *   f32 confidence
+ *   u8  sanctioned      0 / 1
+ *   utf extractedName
+ *   u16 entryCount, then per entry:
+ *     utf name
+ *     utf source        sanctions list the entry came from (UN, OFAC, ...), empty if unknown
+ */
+final class BinaryScreeningCodec {
+
+    static final String CONTENT_TYPE = "application/x-screening-frames";
+
+    static final byte TYPE_NAME = 1;
+    static final byte TYPE_DOCUMENT = 2;
+
+    static final byte STATUS_COMPLETE = 0;
+    static final byte STATUS_PARTIAL = 1;
+    static final byte STATUS_TIMEOUT = 2;
+    static final byte STATUS_ERROR = 3;
+    static final byte STATUS_BUSY = 4;
+    static final byte STATUS_REJECTED = 5;
+
+    // Request body around the document bytes: type, correlationId, longest fileName, length
+    private static final int DOCUMENT_FRAME_OVERHEAD = 1 + 4 + 2 + 0xFFFF + 4;
+
+    private BinaryScreeningCodec() {
+    }
+
+    /**
+     * Largest frame a document of maxDocumentBytes can arrive in
+     */
+    static int maxFrameBytesFor(int maxDocumentBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) maxDocumentBytes + DOCUMENT_FRAME_OVERHEAD);
+    }
+
+    /**
+     * Reads the next request frame, or returns null at a clean end of stream
+     */
+    static Request readRequest(InputStream in, int maxFrameBytes) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        // Only an end before the first byte is clean; one inside the length prefix is a truncated frame
+        int first = data.read();
+        if (first == -1) {
+            return null;
+        }
+        int length = first << 24 | data.readUnsignedByte() << 16 | data.readUnsignedShort();
+        if (length <= 0 || length > maxFrameBytes) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] body = new byte[length];
+        data.readFully(body);
+
+        DataInputStream frame = new DataInputStream(new ByteArrayInputStream(body));
+        Request request = new Request();
+        request.type = frame.readByte();
+        request.correlationId = frame.readInt();
+        if (request.type == TYPE_NAME) {
+            request.name = frame.readUTF();
+        } else if (request.type == TYPE_DOCUMENT) {
+            request.fileName = frame.readUTF();
+            int fileLength = frame.readInt();
+            if (fileLength < 0 || fileLength > length) {
+                throw new IOException("Invalid document length: " + fileLength);
+            }
+            request.file = new byte[fileLength];
+            frame.readFully(request.file);
+        } else {
+            throw new IOException("Unknown frame type: " + request.type);
+        }
+        return request;
+    }
+
+    static void writeResponse(OutputStream out, Response response) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream body = new DataOutputStream(buffer);
+        body.writeInt(response.correlationId);
+        body.writeByte(response.status);
+        body.writeFloat((float) response.confidence);
+        body.writeBoolean(response.sanctioned);
+        body.writeUTF(response.extractedName != null ? response.extractedName : "");
+        int entryCount = Math.min(response.entries.size(), 0xFFFF);
+        body.writeShort(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            SanctionsService.SanctionEntry entry = response.entries.get(i);
+            body.writeUTF(entry.name != null ? entry.name : "");
+            body.writeUTF(entry.source != null ? entry.source : "");
+        }
+        body.flush();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(buffer.size());
+        buffer.writeTo(data);
+        data.flush();
+    }
+
+    static class Request {
+        byte type;
+        int correlationId;
+        String name;
+        String fileName;
+        byte[] file;
+    }
+
+    static class Response {
+        int correlationId;
+        byte status;
+        double confidence;
+        boolean sanctioned;
+        String extractedName;
+        List<SanctionsService.SanctionEntry> entries = new ArrayList<>();
+    }
+}
@@ -0,0 +1,125 @@
+package com.passport.screening.controller;
+
+import com.passport.screening.model.ScreeningResult;
+import com.passport.screening.service.DocumentRejectedException;
+import com.passport.screening.service.OCRProviderRegistry;
+import com.passport.screening.service.OCRService;
+import com.passport.screening.service.OcrCapacityException;
+import com.passport.screening.service.SanctionsService;
+import com.passport.screening.service.ScreeningDeadline;
+import com.passport.screening.service.ScreeningHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Binary screening API for internal service-to-service callers.
+ * Clients stream request frames (see BinaryScreeningCodec) and get one
+ * response frame back per request as soon as it has been screened, so a
+ * batch never has to be buffered on either side.
+ */
+@RestController
+@RequestMapping("/internal/screening")
+public class BinaryScreeningController {
+    private static final Logger logger = LoggerFactory.getLogger(BinaryScreeningController.class);
+
+    private final OCRProviderRegistry ocrProviders;
+    private final SanctionsService sanctionsService;
+    private final ScreeningHistoryService historyService;
+
+    @Value("${app.screening.default-timeout-ms:30000}")
+    private long frameTimeoutMs;
+
+    @Value("${app.ocr.max-document-bytes:20971520}")
+    private int maxDocumentBytes;
+
+    // Unset (or <= 0) means just large enough for a max-document-bytes upload
+    @Value("${app.screening.binary.max-frame-bytes:0}")
+    private int maxFrameBytes;
+
+    public BinaryScreeningController(OCRProviderRegistry ocrProviders, SanctionsService sanctionsService,
+                                     ScreeningHistoryService historyService) {
+        this.ocrProviders = ocrProviders;
+        this.sanctionsService = sanctionsService;
+        this.historyService = historyService;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (maxFrameBytes <= 0) {
+            maxFrameBytes = BinaryScreeningCodec.maxFrameBytesFor(maxDocumentBytes);
+        }
+    }
+
+    @PostMapping(value = "/stream", consumes = BinaryScreeningCodec.CONTENT_TYPE)
+    public void screenStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(BinaryScreeningCodec.CONTENT_TYPE);
+        InputStream in = request.getInputStream();
+        OutputStream out = response.getOutputStream();
+
+        int frames = 0;
+        BinaryScreeningCodec.Request frame;
+        while ((frame = BinaryScreeningCodec.readRequest(in, maxFrameBytes)) != null) {
+            BinaryScreeningCodec.writeResponse(out, screen(frame));
+            frames++;
+        }
+        logger.debug("Binary screening stream finished after {} frames", frames);
+    }
+
+    private BinaryScreeningCodec.Response screen(BinaryScreeningCodec.Request frame) {
+        BinaryScreeningCodec.Response result = new BinaryScreeningCodec.Response();
+        result.correlationId = frame.correlationId;
+        ScreeningDeadline deadline = ScreeningDeadline.after(frameTimeoutMs);
+
+        try {
+            SanctionsService.ScreeningCheckResult sanctionsResult;
+            if (frame.type == BinaryScreeningCodec.TYPE_NAME) {
+                result.extractedName = frame.name;
+                result.confidence = 1.0;
+                sanctionsResult = sanctionsService.checkSanctions(frame.name, deadline);
+                result.status = sanctionsResult.complete
+                    ? BinaryScreeningCodec.STATUS_COMPLETE
+                    : BinaryScreeningCodec.STATUS_PARTIAL;
+            } else {
+                OCRService.OCRResult ocrResult = ocrProviders.extractText(frame.file, frame.fileName, deadline);
+                result.extractedName = ocrResult.extractedName;
+                result.confidence = ocrResult.confidence;
+                sanctionsResult = sanctionsService.checkSanctions(ocrResult.extractedName, deadline);
+                result.status = toStatusCode(ScreeningController.resolveStatus(ocrResult, sanctionsResult));
+            }
+
+            historyService.record(result.extractedName);
+            result.sanctioned = sanctionsResult.isSanctioned;
+            result.entries.addAll(sanctionsResult.entries);
+        } catch (OcrCapacityException e) {
+            result.status = BinaryScreeningCodec.STATUS_BUSY;
+        } catch (DocumentRejectedException e) {
+            logger.warn("Binary screening frame {} rejected: {}", frame.correlationId, e.getMessage());
+            result.status = BinaryScreeningCodec.STATUS_REJECTED;
+        } catch (IOException e) {
+            logger.error("Binary screening failed for frame {}: {}", frame.correlationId, e.getMessage());
+            result.status = BinaryScreeningCodec.STATUS_ERROR;
+        }
+        return result;
+    }
+
+    private byte toStatusCode(String status) {
+        if (ScreeningResult.STATUS_TIMEOUT.equals(status)) {
+            return BinaryScreeningCodec.STATUS_TIMEOUT;
+        }
+        if (ScreeningResult.STATUS_PARTIAL.equals(status)) {
+            return BinaryScreeningCodec.STATUS_PARTIAL;
+        }
+        return BinaryScreeningCodec.STATUS_COMPLETE;
+    }
+}
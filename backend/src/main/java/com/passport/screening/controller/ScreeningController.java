@@ -1,18 +1,33 @@
 package com.passport.screening.controller;
 
+import com.passport.screening.model.SanctionsAlert;
 import com.passport.screening.model.ScreeningResult;
+import com.passport.screening.repository.SanctionsAlertRepository;
+import com.passport.screening.service.DocumentRejectedException;
+import com.passport.screening.service.OCRProviderRegistry;
 import com.passport.screening.service.OCRService;
+import com.passport.screening.service.OcrCapacityException;
+import com.passport.screening.service.OcrMetrics;
+import com.passport.screening.service.SanctionsMatchIndex;
 import com.passport.screening.service.SanctionsService;
+import com.passport.screening.service.ScreeningDeadline;
+import com.passport.screening.service.ScreeningHistoryService;
+import com.passport.screening.service.TesseractEnginePool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,35 +36,88 @@ import java.util.Map;
 public class ScreeningController {
     private static final Logger logger = LoggerFactory.getLogger(ScreeningController.class);
     
-    private final OCRService ocrService;
+    private final OCRProviderRegistry ocrProviders;
     private final SanctionsService sanctionsService;
+    private final AsyncTaskExecutor screeningExecutor;
+    private final TesseractEnginePool enginePool;
+    private final OcrMetrics ocrMetrics;
+    private final SanctionsMatchIndex matchIndex;
+    private final ScreeningHistoryService historyService;
+    private final SanctionsAlertRepository alertRepository;
 
-    public ScreeningController(OCRService ocrService, SanctionsService sanctionsService) {
-        this.ocrService = ocrService;
+    @Value("${app.screening.default-timeout-ms:30000}")
+    private long defaultTimeoutMs;
+
+    @Value("${app.screening.max-timeout-ms:120000}")
+    private long maxTimeoutMs;
+
+    // Extra time the worker gets to return its own partial result before the container times out
+    @Value("${app.screening.timeout-grace-ms:2000}")
+    private long timeoutGraceMs;
+
+    public ScreeningController(OCRProviderRegistry ocrProviders, SanctionsService sanctionsService,
+                               @Qualifier("screeningExecutor") AsyncTaskExecutor screeningExecutor,
+                               TesseractEnginePool enginePool,
+                               OcrMetrics ocrMetrics,
+                               SanctionsMatchIndex matchIndex,
+                               ScreeningHistoryService historyService,
+                               SanctionsAlertRepository alertRepository) {
+        this.ocrProviders = ocrProviders;
         this.sanctionsService = sanctionsService;
+        this.screeningExecutor = screeningExecutor;
+        this.enginePool = enginePool;
+        this.ocrMetrics = ocrMetrics;
+        this.matchIndex = matchIndex;
+        this.historyService = historyService;
+        this.alertRepository = alertRepository;
     }
 
     @PostMapping("/check")
-    public ResponseEntity<ScreeningResult> screenPassport(@RequestBody PassportRequest request) {
+    public WebAsyncTask<ResponseEntity<?>> screenPassport(@RequestBody PassportRequest request) {
+        final ScreeningDeadline deadline = ScreeningDeadline.after(resolveTimeout(request.timeoutMs));
+
+        WebAsyncTask<ResponseEntity<?>> task = new WebAsyncTask<>(
+            deadline.remainingMillis() + timeoutGraceMs,
+            screeningExecutor,
+            () -> screen(request, deadline)
+        );
+        // Container timeout or client disconnect: tell the worker to stop at its next checkpoint
+        task.onTimeout(() -> {
+            deadline.cancel();
+            logger.warn("Screening request for file {} timed out", request.fileName);
+            return ResponseEntity.status(504).body(timeoutResult());
+        });
+        task.onError(() -> {
+            deadline.cancel();
+            logger.warn("Screening request for file {} aborted by client", request.fileName);
+            return ResponseEntity.status(500).<ScreeningResult>build();
+        });
+        return task;
+    }
+
+    private ResponseEntity<?> screen(PassportRequest request, ScreeningDeadline deadline) {
         long startTime = System.currentTimeMillis();
         
-        logger.info("Received screening request for file: {}", request.fileName);
+        logger.info("Received screening request for file: {} (deadline {} ms)", request.fileName, deadline.remainingMillis());
 
         try {
             // Extract text using OCR
-            OCRService.OCRResult ocrResult = ocrService.extractTextFromBase64(
+            OCRService.OCRResult ocrResult = ocrProviders.extractTextFromBase64(
                 request.file,
-                request.fileName
+                request.fileName,
+                deadline
             );
 
             // Check sanctions list
             SanctionsService.ScreeningCheckResult sanctionsResult = sanctionsService.checkSanctions(
-                ocrResult.extractedName
+                ocrResult.extractedName,
+                deadline
             );
+            historyService.record(ocrResult.extractedName);
 
             ArrayList<ScreeningResult.SanctionEntry> entries = new ArrayList<>();
             for (SanctionsService.SanctionEntry entry : sanctionsResult.entries) {
-                entries.add(new ScreeningResult.SanctionEntry(entry.name));
+                entries.add(new ScreeningResult.SanctionEntry(entry.name, entry.source));
             }
 
             // Build response
@@ -61,32 +129,119 @@ public class ScreeningController {
                     entries
                 ),
                 ocrResult.processingTime,
-                LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME)
+                LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME),
+                resolveStatus(ocrResult, sanctionsResult)
             );
 
-            logger.info("Screening completed successfully - Name: {}, Sanctioned: {}",
-                result.getExtractedName(), result.getSanctions().isSanctioned());
+            logger.info("Screening completed - Name: {}, Sanctioned: {}, Status: {}",
+                result.getExtractedName(), result.getSanctions().isSanctioned(), result.getStatus());
 
+            if (ScreeningResult.STATUS_TIMEOUT.equals(result.getStatus())) {
+                return ResponseEntity.status(504).body(result);
+            }
             return ResponseEntity.ok(result);
 
+        } catch (OcrCapacityException e) {
+            logger.warn("Rejecting screening request for file {}: {}", request.fileName, e.getMessage());
+            return ResponseEntity.status(503).header("Retry-After", "5").<ScreeningResult>build();
+        } catch (DocumentRejectedException e) {
+            logger.warn("Refusing document {}: {}", request.fileName, e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("reason", e.getReason().name());
+            return ResponseEntity.status(rejectionStatus(e.getReason())).body(error);
         } catch (IOException e) {
             logger.error("Error processing passport", e);
             return ResponseEntity.status(500).build();
         }
     }
 
+    private static int rejectionStatus(DocumentRejectedException.Reason reason) {
+        switch (reason) {
+            case TOO_LARGE: return 413;
+            case UNSUPPORTED_TYPE: return 415;
+            default: return 422;
+        }
+    }
+
+    private long resolveTimeout(Long requestedTimeoutMs) {
+        if (requestedTimeoutMs == null || requestedTimeoutMs <= 0) {
+            return defaultTimeoutMs;
+        }
+        return Math.min(requestedTimeoutMs, maxTimeoutMs);
+    }
+
+    static String resolveStatus(OCRService.OCRResult ocrResult, SanctionsService.ScreeningCheckResult sanctionsResult) {
+        boolean nameFound = ocrResult.extractedName != null && !ocrResult.extractedName.isEmpty();
+        if (!ocrResult.complete && !nameFound) {
+            return ScreeningResult.STATUS_TIMEOUT;
+        }
+        if (!ocrResult.complete || !sanctionsResult.complete) {
+            return ScreeningResult.STATUS_PARTIAL;
+        }
+        return ScreeningResult.STATUS_COMPLETE;
+    }
+
+    private ScreeningResult timeoutResult() {
+        return new ScreeningResult(
+            "",
+            0.0,
+            new ScreeningResult.SanctionsCheck(false, new ArrayList<ScreeningResult.SanctionEntry>()),
+            0.0,
+            LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME),
+            ScreeningResult.STATUS_TIMEOUT
+        );
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         Map<String, String> healthMap = new HashMap<>();
         healthMap.put("status", "healthy");
         healthMap.put("timestamp", LocalDateTime.now().toString());
         healthMap.put("cache_size", String.valueOf(sanctionsService.getCacheSize()));
+        healthMap.put("ready", String.valueOf(matchIndex.isReady()));
         return ResponseEntity.ok(healthMap);
     }
 
+    /**
+     * Readiness probe: 503 until the sanctions list and match index are
+     * loaded and warm-up has finished, so traffic is only routed afterwards
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        Map<String, Object> readyMap = new HashMap<>();
+        if (!matchIndex.isReady()) {
+            readyMap.put("status", "DOWN");
+            readyMap.put("entries", matchIndex.size());
+            return ResponseEntity.status(503).body(readyMap);
+        }
+        readyMap.put("status", "UP");
+        readyMap.put("entries", matchIndex.size());
+        return ResponseEntity.ok(readyMap);
+    }
+
+    /**
+     * Latest alerts from re-screening past subjects against list additions
+     */
+    @GetMapping("/alerts")
+    public ResponseEntity<List<SanctionsAlert>> alerts() {
+        return ResponseEntity.ok(alertRepository.findTop100ByOrderByCreatedDateDesc());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> statsMap = new HashMap<>();
+        statsMap.put("ocr_engine_pool", enginePool.getStatistics());
+        statsMap.put("ocr", ocrMetrics.snapshot());
+        statsMap.put("ocr_providers", ocrProviders.getStatistics());
+        return ResponseEntity.ok(statsMap);
+    }
+
     public static class PassportRequest {
         public String file;
         public String fileName;
         public String fileType;
+        // Optional client deadline; capped by app.screening.max-timeout-ms
+        public Long timeoutMs;
     }
 }
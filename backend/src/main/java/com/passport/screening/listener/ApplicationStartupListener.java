@@ -1,25 +1,146 @@
 package com.passport.screening.listener;
 
 import com.passport.screening.service.SanctionsListCacheService;
+import com.passport.screening.service.SanctionsMatchIndex;
+import com.passport.screening.service.SanctionsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Brings the sanctions list up in the background so startup never waits on
+ * the download: the persisted list is loaded into the match index first,
+ * synthetic screenings warm up the matcher, and only then is the node
+ * reported ready (GET /api/screening/ready). The freshness check / download
+ * runs afterwards; a cold node with an empty database downloads first.
+ */
 @Component
 public class ApplicationStartupListener {
     private static final Logger logger = LoggerFactory.getLogger(ApplicationStartupListener.class);
     
     private final SanctionsListCacheService sanctionsListCacheService;
+    private final SanctionsMatchIndex matchIndex;
+    private final SanctionsService sanctionsService;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    // Synthetic screenings run before the node reports ready (0 = no warm-up)
+    @Value("${app.sanctions.warmup.screenings:200}")
+    private int warmupScreenings;
+
+    // Backoff between initialization attempts while no list could be loaded
+    @Value("${app.sanctions.init-retry-initial-ms:5000}")
+    private long initRetryInitialMs;
 
-    public ApplicationStartupListener(SanctionsListCacheService sanctionsListCacheService) {
+    @Value("${app.sanctions.init-retry-max-ms:300000}")
+    private long initRetryMaxMs;
+
+    public ApplicationStartupListener(SanctionsListCacheService sanctionsListCacheService,
+                                      SanctionsMatchIndex matchIndex,
+                                      SanctionsService sanctionsService) {
         this.sanctionsListCacheService = sanctionsListCacheService;
+        this.matchIndex = matchIndex;
+        this.sanctionsService = sanctionsService;
     }
 
     @EventListener(ContextRefreshedEvent.class)
     public void onApplicationStartup() {
-        logger.info("Application started - initializing sanctions list cache");
-        sanctionsListCacheService.initializeSanctionsList();
+        // Fires again for child contexts / refreshes
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        logger.info("Application started - initializing sanctions list cache in the background");
+        Thread init = new Thread(this::initialize, "sanctions-init");
+        init.setDaemon(true);
+        init.start();
+    }
+
+    /**
+     * Retries with exponential backoff until a list is loaded: the first
+     * download may fail, or another node may hold the refresh lease and
+     * publish the list a little later. The node stays DOWN meanwhile.
+     */
+    private void initialize() {
+        long backoffMs = initRetryInitialMs;
+        while (true) {
+            try {
+                if (tryInitialize()) {
+                    return;
+                }
+                logger.warn("No sanctions list loaded yet - staying not ready, retrying in {} ms", backoffMs);
+            } catch (RuntimeException e) {
+                logger.error("Sanctions list initialization failed, retrying in {} ms", backoffMs, e);
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, initRetryMaxMs);
+        }
+    }
+
+    /**
+     * @return true once the node is ready
+     */
+    private boolean tryInitialize() {
+        matchIndex.load();
+        boolean persisted = matchIndex.hasList();
+        if (!persisted) {
+            logger.info("No persisted sanctions list - downloading before reporting ready");
+            sanctionsListCacheService.initializeSanctionsList();
+            if (!matchIndex.hasList()) {
+                // The refresh event reloads on success; another node may have published since
+                matchIndex.load();
+            }
+            if (!matchIndex.hasList()) {
+                return false;
+            }
+        }
+        warmUp();
+        if (!matchIndex.markReady()) {
+            return false;
+        }
+        logger.info("Sanctions screening ready with {} entries", matchIndex.size());
+
+        if (persisted) {
+            // Serving the persisted list meanwhile; a changed list reloads the index
+            sanctionsListCacheService.initializeSanctionsList();
+        }
+        return true;
+    }
+
+    /**
+     * Runs synthetic screenings (list names and random strings) so the
+     * matcher is JIT-compiled before real traffic arrives
+     */
+    private void warmUp() {
+        List<SanctionsMatchIndex.Entry> entries = matchIndex.entries();
+        if (warmupScreenings <= 0 || entries == null || entries.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Random random = new Random(42);
+        for (int i = 0; i < warmupScreenings; i++) {
+            String name;
+            if (i % 2 == 0) {
+                name = entries.get(random.nextInt(entries.size())).coreName;
+            } else {
+                StringBuilder synthetic = new StringBuilder();
+                for (int c = 0; c < 12; c++) {
+                    synthetic.append(c == 6 ? ' ' : (char) ('A' + random.nextInt(26)));
+                }
+                name = synthetic.toString();
+            }
+            sanctionsService.checkSanctions(name);
+        }
+        logger.info("Sanctions matcher warm-up: {} screenings in {} ms", warmupScreenings, System.currentTimeMillis() - start);
     }
 }
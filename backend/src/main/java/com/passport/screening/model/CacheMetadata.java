@@ -5,6 +5,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Document(collection = "cache_metadata")
 @Data
@@ -15,4 +19,26 @@ public class CacheMetadata {
     private LocalDateTime lastUpdated;
     private long totalRecords;
     private String sourceVersion;
+    // Per SanctionsSource name: what the stored entries of that source came from
+    private Map<String, SourceState> sources = new HashMap<>();
+    // Fencing token of the refresh lease under which this version was published
+    private long leaseToken;
+    // Staging collection still to be renamed over the live one; readers
+    // treat sourceVersion as unpublished until this is cleared
+    private String pendingSwap;
+    // Versions whose added entries (rescreen_entries) still have to be re-screened against the history
+    private List<String> pendingRescreens = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SourceState {
+        // Validators for the conditional GET of the next refresh
+        private String etag;
+        private String lastModified;
+        // SHA-256 of the fetched list, for sources without usable validators
+        private String contentHash;
+        private long records;
+        private LocalDateTime lastUpdated;
+    }
 }
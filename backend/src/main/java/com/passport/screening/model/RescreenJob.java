@@ -0,0 +1,32 @@
+package com.passport.screening.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of re-screening the history against one list version's
+ * additions, so a node that picks up an interrupted run continues after
+ * the last finished subject instead of starting over.
+ */
+@Document(collection = "rescreen_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescreenJob {
+	// List version (CacheMetadata.sourceVersion) whose additions are re-screened
+	private String id;
+
+	// Highest ScreenedSubject id (subjects are processed in id order) done so far
+	private String checkpoint;
+
+	private long alerts;
+
+	// Node working on it and until when its claim holds
+	private String owner;
+
+	private LocalDateTime claimedUntil;
+}
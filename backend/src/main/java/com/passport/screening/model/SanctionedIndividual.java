@@ -18,5 +18,12 @@ public class SanctionedIndividual {
 	@Indexed
 	private String name;
 
+	// SanctionsSource the entry came from (UN, OFAC, ...)
+	@Indexed
+	private String source;
+
 	private LocalDateTime createdDate;
+
+	// List version (CacheMetadata.sourceVersion) this record was loaded with
+	private String listVersion;
 }
@@ -0,0 +1,39 @@
+package com.passport.screening.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A previously screened subject that matches an entry added to the
+ * sanctions list after the screening.
+ */
+@Document(collection = "sanctions_alerts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SanctionsAlert {
+	// listVersion + subject + entry, so re-processing a version adds no duplicates
+	private String id;
+
+	// Name as last screened and its normalized form (ScreenedSubject id)
+	private String subjectName;
+
+	private String subjectKey;
+
+	private LocalDateTime lastScreened;
+
+	// Added list entry that matched and its SanctionsSource
+	private String entryName;
+
+	private String entrySource;
+
+	private String listVersion;
+
+	@Indexed
+	private LocalDateTime createdDate;
+}
@@ -0,0 +1,30 @@
+package com.passport.screening.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A name screened in the past, kept so later list additions can be checked
+ * against it. One document per normalized name.
+ */
+@Document(collection = "screening_history")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreenedSubject {
+	// Normalized name (SanctionsMatchIndex.normalizeName)
+	private String id;
+
+	// Name as last screened
+	private String name;
+
+	private LocalDateTime firstScreened;
+
+	private LocalDateTime lastScreened;
+
+	private long screenings;
+}
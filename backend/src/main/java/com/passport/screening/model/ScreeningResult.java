@@ -23,6 +23,13 @@ public class ScreeningResult {
     
     private String timestamp;
     
+    // COMPLETE, PARTIAL (deadline hit after some work was done) or TIMEOUT
+    private String status;
+    
+    public static final String STATUS_COMPLETE = "COMPLETE";
+    public static final String STATUS_PARTIAL = "PARTIAL";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -37,5 +44,7 @@ public class ScreeningResult {
     @AllArgsConstructor
     public static class SanctionEntry {
         private String name;
+        // Sanctions list that matched (UN, OFAC, ...)
+        private String source;
     }
 }
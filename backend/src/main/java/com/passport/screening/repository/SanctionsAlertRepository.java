@@ -0,0 +1,13 @@
+package com.passport.screening.repository;
+
+import com.passport.screening.model.SanctionsAlert;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SanctionsAlertRepository extends MongoRepository<SanctionsAlert, String> {
+
+    List<SanctionsAlert> findTop100ByOrderByCreatedDateDesc();
+}
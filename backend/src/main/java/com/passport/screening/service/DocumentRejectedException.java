@@ -0,0 +1,24 @@
+package com.passport.screening.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload is refused before (or instead of) OCR: too big, not a
+ * supported type, unreadable, or beyond the page limits. Unlike an OCR failure
+ * retrying will not help, so callers should report it as a client error.
+ */
+public class DocumentRejectedException extends IOException {
+
+    public enum Reason { TOO_LARGE, UNSUPPORTED_TYPE, UNREADABLE, TOO_MANY_PAGES, PAGE_TOO_LARGE }
+
+    private final Reason reason;
+
+    public DocumentRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
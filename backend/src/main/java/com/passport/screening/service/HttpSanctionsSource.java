@@ -0,0 +1,107 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.CacheMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * Conditional HTTP download shared by the remote sources: sends the stored
+ * ETag / Last-Modified, and streams the body to a temp file while hashing it
+ * so the list is never held in memory.
+ */
+public abstract class HttpSanctionsSource implements SanctionsSource {
+    private static final Logger logger = LoggerFactory.getLogger(HttpSanctionsSource.class);
+
+    protected abstract String getUrl();
+
+    /**
+     * Accept header for the list's format
+     */
+    protected String getAccept() {
+        return "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return getUrl() != null && !getUrl().trim().isEmpty();
+    }
+
+    @Override
+    public Fetched fetch(CacheMetadata.SourceState previous) throws IOException {
+        logger.info("Downloading {} sanctions list from {}", getName(), getUrl());
+        URL url = new URL(getUrl());
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        try {
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(30000);
+            connection.setReadTimeout(30000);
+            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
+            connection.setRequestProperty("Accept", getAccept());
+            connection.setRequestProperty("Accept-Language", "en-US,en;q=0.5");
+            if (previous != null && previous.getEtag() != null) {
+                connection.setRequestProperty("If-None-Match", previous.getEtag());
+            }
+            if (previous != null && previous.getLastModified() != null) {
+                connection.setRequestProperty("If-Modified-Since", previous.getLastModified());
+            }
+
+            int responseCode = connection.getResponseCode();
+            logger.info("{} HTTP Response Code: {}", getName(), responseCode);
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Failed to download " + getName() + " sanctions list. HTTP Response Code: " + responseCode);
+            }
+
+            Fetched fetched = new Fetched();
+            fetched.etag = connection.getHeaderField("ETag");
+            fetched.lastModified = connection.getHeaderField("Last-Modified");
+            fetched.charset = responseCharset(connection.getContentType());
+            fetched.file = File.createTempFile("sanctions-" + getName().toLowerCase() + "-", ".download");
+            fetched.temporary = true;
+            MessageDigest digest = SanctionsListCacheService.sha256();
+            try (InputStream in = new DigestInputStream(connection.getInputStream(), digest)) {
+                long bytes = Files.copy(in, fetched.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Downloaded {} bytes of the {} sanctions list", bytes, getName());
+            } catch (IOException e) {
+                fetched.release();
+                throw e;
+            }
+            fetched.contentHash = SanctionsListCacheService.toHex(digest.digest());
+            return fetched;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Charset responseCharset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String trimmed = param.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(trimmed.substring(8).replace("\"", "").trim());
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Unknown charset in Content-Type '{}', using UTF-8", contentType);
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,93 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.CacheMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.function.Consumer;
+
+/**
+ * List read from a local file, for air-gapped deployments and tests.
+ * Accepts a saved copy of the UN list (HTML or XML) or plain text with one
+ * full name per line ('#' starts a comment). Unchanged content is detected
+ * by hash, so a refresh re-reads the file but writes nothing.
+ */
+@Component
+public class LocalFileSanctionsSource implements SanctionsSource {
+
+    // Empty = disabled
+    @Value("${app.sanctions.file.path:}")
+    private String path;
+
+    @Value("${app.sanctions.file.name:LOCAL}")
+    private String name;
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return path != null && !path.trim().isEmpty();
+    }
+
+    @Override
+    public Fetched fetch(CacheMetadata.SourceState previous) throws IOException {
+        File file = new File(path.trim());
+        if (!file.isFile()) {
+            throw new IOException("Sanctions list file " + file.getAbsolutePath() + " does not exist");
+        }
+        MessageDigest digest = SanctionsListCacheService.sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new DigestInputStream(new FileInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                // hashing only
+            }
+        }
+        Fetched fetched = new Fetched();
+        fetched.file = file;
+        fetched.charset = StandardCharsets.UTF_8;
+        fetched.contentHash = SanctionsListCacheService.toHex(digest.digest());
+        return fetched;
+    }
+
+    @Override
+    public int parse(Fetched fetched, Consumer<String> names) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(fetched.file), fetched.charset))) {
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset(); // no byte order mark
+            }
+            reader.mark(1);
+            int first = reader.read();
+            reader.reset();
+            if (first == '<') {
+                return SanctionsListParser.parse(reader, names);
+            }
+            int records = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String entry = line.trim().replaceAll("\\s+", " ");
+                if (entry.isEmpty() || entry.startsWith("#")) {
+                    continue;
+                }
+                records++;
+                if (entry.length() >= 2) {
+                    names.accept(entry);
+                }
+            }
+            return records;
+        }
+    }
+}
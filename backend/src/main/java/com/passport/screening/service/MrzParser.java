@@ -0,0 +1,170 @@
+package com.passport.screening.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ICAO 9303 TD3 (passport) machine readable zone parser.
+ * Finds the two 44-character MRZ lines in OCR output and validates the
+ * document number, birth date, expiry date, personal number and composite
+ * check digits. Only a fully validated MRZ should be trusted.
+ */
+public final class MrzParser {
+
+    static final int TD3_LINE_LENGTH = 44;
+
+    private static final int[] WEIGHTS = {7, 3, 1};
+
+    private MrzParser() {
+    }
+
+    /**
+     * Parses the first TD3 MRZ found in the text.
+     * @return the best candidate (check {@link MrzData#valid}), or null if no MRZ-like lines were found
+     */
+    public static MrzData parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (String raw : text.split("\\r?\\n")) {
+            String line = raw.toUpperCase().replaceAll("[^A-Z0-9<]", "");
+            // OCR drops / merges fillers, so accept lines that are roughly MRZ length
+            if (line.length() >= 30) {
+                lines.add(line);
+            }
+        }
+
+        MrzData best = null;
+        for (int i = 0; i + 1 < lines.size(); i++) {
+            String first = lines.get(i);
+            if (first.charAt(0) != 'P') {
+                continue;
+            }
+            MrzData candidate = parseTd3(fit(first), fit(lines.get(i + 1)));
+            if (candidate.valid) {
+                return candidate;
+            }
+            if (best == null || candidate.checksPassed > best.checksPassed) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static MrzData parseTd3(String line1, String line2) {
+        // Digits in numeric fields are often read as look-alike letters
+        char[] second = line2.toCharArray();
+        fixNumeric(second, 9, 10);
+        fixNumeric(second, 13, 20);
+        fixNumeric(second, 21, 28);
+        fixNumeric(second, 42, 44);
+        line2 = new String(second);
+
+        MrzData data = new MrzData();
+        data.issuingState = line1.substring(2, 5).replace("<", "");
+        String names = line1.substring(5);
+        int separator = names.indexOf("<<");
+        if (separator >= 0) {
+            data.surname = names.substring(0, separator).replace('<', ' ').trim();
+            data.givenNames = names.substring(separator + 2).replace('<', ' ').trim().replaceAll("\\s+", " ");
+        } else {
+            data.surname = names.replace('<', ' ').trim();
+            data.givenNames = "";
+        }
+
+        data.documentNumber = line2.substring(0, 9).replace("<", "");
+        data.nationality = line2.substring(10, 13).replace("<", "");
+        data.birthDate = line2.substring(13, 19);
+        data.sex = line2.charAt(20);
+        data.expiryDate = line2.substring(21, 27);
+
+        int passed = 0;
+        if (checkDigitMatches(line2.substring(0, 9), line2.charAt(9))) passed++;
+        if (checkDigitMatches(line2.substring(13, 19), line2.charAt(19))) passed++;
+        if (checkDigitMatches(line2.substring(21, 27), line2.charAt(27))) passed++;
+        if (personalNumberCheckMatches(line2.substring(28, 42), line2.charAt(42))) passed++;
+        String composite = line2.substring(0, 10) + line2.substring(13, 20) + line2.substring(21, 43);
+        if (checkDigitMatches(composite, line2.charAt(43))) passed++;
+
+        data.checksPassed = passed;
+        data.valid = passed == MrzData.TOTAL_CHECKS && !data.surname.isEmpty();
+        return data;
+    }
+
+    static int checkDigit(String field) {
+        int sum = 0;
+        for (int i = 0; i < field.length(); i++) {
+            sum += charValue(field.charAt(i)) * WEIGHTS[i % 3];
+        }
+        return sum % 10;
+    }
+
+    private static boolean checkDigitMatches(String field, char digit) {
+        int expected = digit - '0';
+        return expected >= 0 && expected <= 9 && checkDigit(field) == expected;
+    }
+
+    private static boolean personalNumberCheckMatches(String field, char digit) {
+        // The personal number is optional; when it is empty its check digit may be '<'
+        if (digit == '<') {
+            return field.chars().allMatch(c -> c == '<');
+        }
+        return checkDigitMatches(field, digit);
+    }
+
+    private static int charValue(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+        return 0;
+    }
+
+    private static void fixNumeric(char[] line, int from, int to) {
+        for (int i = from; i < to; i++) {
+            switch (line[i]) {
+                case 'O': case 'Q': case 'D': line[i] = '0'; break;
+                case 'I': case 'L': line[i] = '1'; break;
+                case 'Z': line[i] = '2'; break;
+                case 'S': line[i] = '5'; break;
+                case 'G': line[i] = '6'; break;
+                case 'B': line[i] = '8'; break;
+                default: break;
+            }
+        }
+    }
+
+    private static String fit(String line) {
+        if (line.length() >= TD3_LINE_LENGTH) {
+            return line.substring(0, TD3_LINE_LENGTH);
+        }
+        StringBuilder padded = new StringBuilder(line);
+        while (padded.length() < TD3_LINE_LENGTH) {
+            padded.append('<');
+        }
+        return padded.toString();
+    }
+
+    public static class MrzData {
+        static final int TOTAL_CHECKS = 5;
+
+        public String issuingState;
+        public String surname;
+        public String givenNames;
+        public String documentNumber;
+        public String nationality;
+        public String birthDate;
+        public char sex;
+        public String expiryDate;
+        // Number of the five TD3 check digits that matched
+        public int checksPassed;
+        public boolean valid;
+
+        /**
+         * Name in the same "GIVEN NAMES SURNAME" form as the labelled-field extraction
+         */
+        public String fullName() {
+            return (givenNames + " " + surname).trim().toUpperCase();
+        }
+    }
+}
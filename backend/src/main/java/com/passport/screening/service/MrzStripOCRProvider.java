@@ -0,0 +1,44 @@
+package com.passport.screening.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Tesseract on the MRZ band only (ICAO 9303 check digits validated).
+ * Much cheaper than a full-page read; yields a name only when the MRZ validates.
+ */
+@Component
+public class MrzStripOCRProvider implements OCRProvider {
+
+    private final OCRService ocrService;
+
+    public MrzStripOCRProvider(OCRService ocrService) {
+        this.ocrService = ocrService;
+    }
+
+    @Override
+    public OCRService.OCRResult extractText(byte[] fileBytes, String fileName) throws IOException {
+        return extractText(fileBytes, fileName, ScreeningDeadline.none());
+    }
+
+    @Override
+    public OCRService.OCRResult extractText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        return ocrService.extractMrzText(fileBytes, fileName, deadline);
+    }
+
+    @Override
+    public String getName() {
+        return "MrzStrip";
+    }
+
+    @Override
+    public int getCost() {
+        return 20;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return ocrService.isMrzFastPathEnabled();
+    }
+}
@@ -15,11 +15,24 @@ public interface OCRProvider {
      */
     OCRService.OCRResult extractText(byte[] fileBytes, String fileName) throws IOException;
 
+    /**
+     * Deadline-aware variant used by OCRProviderRegistry; providers that can
+     * stop early (or be abandoned as a losing hedge) override it
+     */
+    default OCRService.OCRResult extractText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        return extractText(fileBytes, fileName);
+    }
+
     /**
      * Get the provider name for logging
      */
     String getName();
 
+    /**
+     * Relative cost; the registry tries cheaper providers first
+     */
+    int getCost();
+
     /**
      * Check if this provider is available/configured
      */
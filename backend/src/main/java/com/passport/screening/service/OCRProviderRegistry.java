@@ -0,0 +1,320 @@
+package com.passport.screening.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes OCR requests through the configured providers, cheapest first
+ * (Tika text layer, MRZ strip, full Tesseract).
+ * When a provider has not answered within app.ocr.hedge-delay-ms the next
+ * one is started alongside it; the first result with a name and at least
+ * app.ocr.accept-confidence wins and the others are cancelled through their
+ * deadlines. A provider that fails or answers weakly hands over immediately.
+ * Results are cached by content (OcrResultCache) regardless of which provider won.
+ */
+@Service
+public class OCRProviderRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(OCRProviderRegistry.class);
+    // Bumped when the rules for what may be cached change, dropping older entries
+    private static final String CACHE_RULES = "r3-";
+
+    // Provider names (case-insensitive) in the chain; ordering is by getCost()
+    @Value("${app.ocr.providers:tika,mrzstrip,tesseract}")
+    private String[] enabledProviders;
+
+    @Value("${app.ocr.hedge-delay-ms:1500}")
+    private long hedgeDelayMs;
+
+    @Value("${app.ocr.accept-confidence:0.8}")
+    private double acceptConfidence;
+
+    private final List<OCRProvider> allProviders;
+    private final OCRService ocrService;
+    private final OcrResultCache resultCache;
+    private final AsyncTaskExecutor hedgeExecutor;
+    private final Map<String, ProviderStats> stats = new LinkedHashMap<>();
+    private List<OCRProvider> chain;
+    private String cacheVersion;
+
+    public OCRProviderRegistry(List<OCRProvider> allProviders,
+                               OCRService ocrService,
+                               OcrResultCache resultCache,
+                               @Qualifier("ocrHedgeExecutor") AsyncTaskExecutor hedgeExecutor) {
+        this.allProviders = allProviders;
+        this.ocrService = ocrService;
+        this.resultCache = resultCache;
+        this.hedgeExecutor = hedgeExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        List<String> wanted = new ArrayList<>();
+        for (String name : enabledProviders) {
+            wanted.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        chain = new ArrayList<>();
+        for (OCRProvider provider : allProviders) {
+            if (wanted.contains(provider.getName().toLowerCase(Locale.ROOT)) && provider.isAvailable()) {
+                chain.add(provider);
+                stats.put(provider.getName(), new ProviderStats());
+            }
+        }
+        chain.sort(Comparator.comparingInt(OCRProvider::getCost));
+        if (chain.isEmpty()) {
+            throw new IllegalStateException("No available OCR provider in app.ocr.providers");
+        }
+
+        StringBuilder names = new StringBuilder();
+        for (OCRProvider provider : chain) {
+            names.append(names.length() == 0 ? "" : ",").append(provider.getName());
+        }
+        // Which providers can answer changes what gets cached
+        cacheVersion = CACHE_RULES + ocrService.getConfigVersion() + Integer.toHexString(names.toString().hashCode());
+        logger.info("OCR provider chain: {} (hedge after {} ms, accept confidence {})",
+            names, hedgeDelayMs, acceptConfidence);
+    }
+
+    public OCRService.OCRResult extractTextFromBase64(String base64Data, String fileName,
+                                                      ScreeningDeadline deadline) throws IOException {
+        return extractText(OCRService.decodeBase64(base64Data), fileName, deadline);
+    }
+
+    public OCRService.OCRResult extractText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        if (fileBytes == null || fileBytes.length == 0) throw new IOException("File data is empty");
+        long start = System.nanoTime();
+        String cacheKey = resultCache.key(fileBytes, cacheVersion);
+        OCRService.OCRResult result = resultCache.get(cacheKey);
+        if (result != null) {
+            result.processingTime = elapsedSeconds(start);
+            logger.info("OCR served from cache ({} via {}) in {}s", result.path, result.provider, result.processingTime);
+            return result;
+        }
+
+        // Oversized / malformed uploads never reach a provider
+        ocrService.checkDocument(fileBytes);
+        result = runChain(fileBytes, fileName, deadline);
+        result.processingTime = elapsedSeconds(start);
+        // Only a conclusive answer is cached: a deadline cut-off or a provider
+        // error (capacity, I/O) is transient and must not stick for max-age-hours
+        if (result.complete) {
+            resultCache.put(cacheKey, result);
+        } else {
+            logger.debug("Not caching partial OCR result of {}", fileName);
+        }
+        return result;
+    }
+
+    private OCRService.OCRResult runChain(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        ExecutorCompletionService<Attempt> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        List<Future<Attempt>> futures = new ArrayList<>();
+        List<ScreeningDeadline> attemptDeadlines = new ArrayList<>();
+        OCRService.OCRResult best = null;
+        IOException failure = null;
+        // Deadline or interrupt ended the chain before every provider answered
+        boolean cutShort = false;
+        int next = 0;
+        int running = 0;
+        try {
+            while (running > 0 || next < chain.size()) {
+                try {
+                    if (running == 0) {
+                        start(completion, chain.get(next++), fileBytes, fileName, deadline, futures, attemptDeadlines, false);
+                        running++;
+                        continue;
+                    }
+
+                    boolean canHedge = next < chain.size();
+                    long wait = canHedge ? Math.min(hedgeDelayMs, deadline.remainingMillis()) : deadline.remainingMillis();
+                    Future<Attempt> done = completion.poll(wait, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        if (deadline.isExpired()) {
+                            cutShort = true;
+                            break;
+                        }
+                        // Cheaper provider is slow - race the next one against it
+                        start(completion, chain.get(next++), fileBytes, fileName, deadline, futures, attemptDeadlines, true);
+                        running++;
+                        continue;
+                    }
+                    running--;
+
+                    Attempt attempt = done.get();
+                    ProviderStats providerStats = stats.get(attempt.provider.getName());
+                    providerStats.completed.incrementAndGet();
+                    providerStats.latencyNanos.addAndGet(attempt.latencyNanos);
+                    if (attempt.error instanceof DocumentRejectedException) {
+                        // Same answer from every provider - no point trying the rest
+                        throw (DocumentRejectedException) attempt.error;
+                    }
+                    if (attempt.error != null) {
+                        providerStats.failures.incrementAndGet();
+                        logger.warn("OCR provider {} failed: {}", attempt.provider.getName(), attempt.error.getMessage());
+                        failure = attempt.error;
+                        if (next < chain.size() && running > 0) {
+                            start(completion, chain.get(next++), fileBytes, fileName, deadline, futures, attemptDeadlines, false);
+                            running++;
+                        }
+                        continue;
+                    }
+
+                    OCRService.OCRResult result = attempt.result;
+                    result.provider = attempt.provider.getName();
+                    if (isGood(result)) {
+                        providerStats.successes.incrementAndGet();
+                        providerStats.wins.incrementAndGet();
+                        return result;
+                    }
+                    if (best == null || result.confidence > best.confidence) {
+                        best = result;
+                    }
+                    // Weak answer: no point waiting out the hedge delay for the next provider
+                    if (next < chain.size()) {
+                        start(completion, chain.get(next++), fileBytes, fileName, deadline, futures, attemptDeadlines, false);
+                        running++;
+                    }
+                } catch (OcrCapacityException e) {
+                    if (running == 0 && best == null) {
+                        throw e;
+                    }
+                    // No room for another provider - finish with the attempts already running
+                    logger.warn("OCR provider chain cut short: {}", e.getMessage());
+                    failure = e;
+                    next = chain.size();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cutShort = true;
+        } catch (ExecutionException e) {
+            // Attempts catch their own exceptions; anything here is a bug in the registry itself
+            throw new IOException("OCR provider chain failed", e.getCause());
+        } finally {
+            // Losers (and anything still queued) stop at their next checkpoint
+            for (ScreeningDeadline attemptDeadline : attemptDeadlines) {
+                attemptDeadline.cancel();
+            }
+            for (Future<Attempt> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        if (best != null) {
+            stats.get(best.provider).wins.incrementAndGet();
+            if (cutShort || failure != null) {
+                // A provider that did not get to answer (or failed) might have done better
+                logger.info("Returning weak {} result as partial - provider chain {}",
+                    best.provider, cutShort ? "hit the deadline" : "had failures");
+                best.complete = false;
+            }
+            return best;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        // Deadline passed before any provider answered
+        OCRService.OCRResult empty = new OCRService.OCRResult("", 0, "", 0);
+        empty.complete = false;
+        return empty;
+    }
+
+    private void start(ExecutorCompletionService<Attempt> completion, OCRProvider provider, byte[] fileBytes,
+                       String fileName, ScreeningDeadline deadline, List<Future<Attempt>> futures,
+                       List<ScreeningDeadline> attemptDeadlines, boolean hedge) throws OcrCapacityException {
+        ScreeningDeadline attemptDeadline = deadline.child();
+        ProviderStats providerStats = stats.get(provider.getName());
+        providerStats.calls.incrementAndGet();
+        if (hedge) {
+            providerStats.hedges.incrementAndGet();
+        }
+        try {
+            futures.add(completion.submit(() -> attempt(provider, fileBytes, fileName, attemptDeadline)));
+        } catch (TaskRejectedException e) {
+            throw new OcrCapacityException("OCR provider queue is full");
+        }
+        attemptDeadlines.add(attemptDeadline);
+    }
+
+    private static Attempt attempt(OCRProvider provider, byte[] fileBytes, String fileName, ScreeningDeadline deadline) {
+        Attempt attempt = new Attempt(provider);
+        long start = System.nanoTime();
+        try {
+            attempt.result = provider.extractText(fileBytes, fileName, deadline);
+        } catch (IOException e) {
+            attempt.error = e;
+        } catch (RuntimeException e) {
+            attempt.error = new IOException(provider.getName() + " failed: " + e.getMessage(), e);
+        }
+        attempt.latencyNanos = System.nanoTime() - start;
+        return attempt;
+    }
+
+    private boolean isGood(OCRService.OCRResult result) {
+        return result.extractedName != null && !result.extractedName.isEmpty()
+            && result.confidence >= acceptConfidence;
+    }
+
+    private static double elapsedSeconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ProviderStats> entry : stats.entrySet()) {
+            ProviderStats providerStats = entry.getValue();
+            long calls = providerStats.calls.get();
+            long completed = providerStats.completed.get();
+            Map<String, Object> provider = new LinkedHashMap<>();
+            provider.put("calls", calls);
+            provider.put("hedged", providerStats.hedges.get());
+            provider.put("wins", providerStats.wins.get());
+            provider.put("failures", providerStats.failures.get());
+            provider.put("success_rate", calls == 0 ? 0 : (double) providerStats.successes.get() / calls);
+            provider.put("avg_latency_ms", completed == 0 ? 0
+                : TimeUnit.NANOSECONDS.toMillis(providerStats.latencyNanos.get() / completed));
+            result.put(entry.getKey(), provider);
+        }
+        return result;
+    }
+
+    private static final class Attempt {
+        final OCRProvider provider;
+        OCRService.OCRResult result;
+        IOException error;
+        long latencyNanos;
+
+        Attempt(OCRProvider provider) {
+            this.provider = provider;
+        }
+    }
+
+    private static final class ProviderStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong hedges = new AtomicLong();
+        // Answered with a name at or above the accept confidence
+        final AtomicLong successes = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong wins = new AtomicLong();
+        // Attempts that returned (abandoned hedges are not timed)
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong latencyNanos = new AtomicLong();
+    }
+}
@@ -1,21 +1,43 @@
 package com.passport.screening.service;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.tika.Tika;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
-import java.awt.*;
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,6 +46,89 @@ public class OCRService {
 
     private static final Logger logger = LoggerFactory.getLogger(OCRService.class);
     private final Tika tika = new Tika();
+    private final TesseractEnginePool enginePool;
+    private final AsyncTaskExecutor pageExecutor;
+    private final OcrMetrics metrics;
+    // Part of every OCR cache key; changes whenever a setting that affects OCR output changes
+    private String configVersion;
+
+    // Bump when a code change alters what the pipeline extracts, to invalidate cached results
+    private static final int PIPELINE_VERSION = 1;
+
+    // Which part of the pipeline produced the result (OCRResult.path)
+    public static final String PATH_TEXT_LAYER = "TEXT_LAYER";
+    public static final String PATH_MRZ_STRIP = "MRZ_STRIP";
+    public static final String PATH_FULL_PAGE = "FULL_PAGE";
+    public static final String PATH_NONE = "NONE";
+
+    // Upload types recognized from magic bytes
+    static final String TYPE_PDF = "PDF";
+    static final String TYPE_JPEG = "JPEG";
+    static final String TYPE_PNG = "PNG";
+    static final String TYPE_TIFF = "TIFF";
+    static final String TYPE_UNKNOWN = "UNKNOWN";
+
+    @Value("${app.ocr.max-parallel-pages-per-document:2}")
+    private int maxParallelPages;
+
+    // Render resolutions tried in order; a page moves up only when the previous attempt was not good enough
+    @Value("${app.ocr.dpi-ladder:150,225,300}")
+    private int[] dpiLadder;
+
+    // Mean word confidence (0-1) below which a page is re-rendered at the next DPI
+    @Value("${app.ocr.escalation-confidence:0.7}")
+    private double escalationConfidence;
+
+    // Which pages are tried first; OCR stops once a page yields a validated MRZ or confident name
+    @Value("${app.ocr.page-order:natural}")
+    private String pageOrder;
+
+    // Uploads above this are refused before any provider runs
+    @Value("${app.ocr.max-document-bytes:20971520}")
+    private long maxDocumentBytes;
+
+    @Value("${app.ocr.pdf.max-pages:20}")
+    private int maxPages;
+
+    // Parsed PDF data beyond this spills to a scratch file in temp-dir
+    @Value("${app.ocr.pdf.max-main-memory-bytes:16777216}")
+    private long pdfMainMemoryBytes;
+
+    @Value("${app.ocr.pdf.temp-dir:${java.io.tmpdir}}")
+    private String pdfTempDir;
+
+    // Rendered page size cap (8-bit gray, so also bytes); DPI is lowered to stay under it
+    @Value("${app.ocr.max-page-pixels:9000000}")
+    private long maxPagePixels;
+
+    // Pages that would have to be rendered below this DPI to fit the pixel budget are refused
+    @Value("${app.ocr.min-page-dpi:100}")
+    private int minPageDpi;
+
+    // Images whose header claims more pixels than this are refused (decompression bombs)
+    @Value("${app.ocr.image.max-source-pixels:100000000}")
+    private long imageMaxSourcePixels;
+
+    // Uploaded photos are decoded with subsampling so no more than this many pixels reach the heap
+    @Value("${app.ocr.image.max-pixels:6000000}")
+    private long imageMaxPixels;
+
+    // Physical width assumed for a photographed page when estimating its DPI (TD3 data page: 125mm)
+    @Value("${app.ocr.image.assumed-width-mm:125}")
+    private double imageAssumedWidthMm;
+
+    @Value("${app.ocr.mrz.enabled:true}")
+    private boolean mrzFastPathEnabled;
+
+    // Bottom share of the page searched for the MRZ band
+    @Value("${app.ocr.mrz.band-fraction:0.3}")
+    private double mrzBandFraction;
+
+    // Single uniform block of text, MRZ alphabet only
+    private static final TesseractEngine.Profile MRZ_PROFILE =
+        new TesseractEngine.Profile(6, "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789<");
+
+    private static final double MRZ_CONFIDENCE = 0.95;
 
     // FIXED: Updated MRZ pattern to specifically handle the P<IND format found in your scan 
     private static final Pattern MRZ_PATTERN = Pattern.compile(
@@ -41,79 +146,579 @@ public class OCRService {
             Pattern.CASE_INSENSITIVE | Pattern.MULTILINE
     );
 
+    public OCRService(TesseractEnginePool enginePool,
+                      @Qualifier("ocrPageExecutor") AsyncTaskExecutor pageExecutor,
+                      OcrMetrics metrics) {
+        this.enginePool = enginePool;
+        this.pageExecutor = pageExecutor;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        configVersion = Integer.toHexString(Objects.hash(PIPELINE_VERSION, enginePool.getLanguage(),
+            enginePool.getFullPageProfile(), Arrays.toString(dpiLadder), escalationConfidence, pageOrder,
+            mrzFastPathEnabled, mrzBandFraction, imageMaxPixels, imageAssumedWidthMm, maxPagePixels));
+
+        // Upload (request body + base64 text + decoded bytes), two parsed copies of the
+        // document (provider hedge) and the pages in flight (render + deskewed copy)
+        long perScreeningBytes = 5 * maxDocumentBytes + 2 * pdfMainMemoryBytes
+            + 2L * maxParallelPages * Math.max(maxPagePixels, imageMaxPixels);
+        logger.info("OCR limits - document: {} MB, pages: {}, page pixels: {}, PDF heap: {} MB; "
+                + "approximate peak heap per screening: {} MB",
+            maxDocumentBytes >> 20, maxPages, maxPagePixels, pdfMainMemoryBytes >> 20, perScreeningBytes >> 20);
+    }
+
+    public String getConfigVersion() {
+        return configVersion;
+    }
+
+    public boolean isMrzFastPathEnabled() {
+        return mrzFastPathEnabled;
+    }
+
     public OCRResult extractTextFromBase64(String base64Data, String fileName) throws IOException {
+        return extractTextFromBase64(base64Data, fileName, ScreeningDeadline.none());
+    }
+
+    public OCRResult extractTextFromBase64(String base64Data, String fileName, ScreeningDeadline deadline) throws IOException {
+        return extractText(decodeBase64(base64Data), fileName, deadline);
+    }
+
+    static byte[] decodeBase64(String base64Data) throws IOException {
         if (base64Data == null || base64Data.isEmpty()) throw new IOException("Base64 data is empty");
+        try {
+            return Base64.getDecoder().decode(base64Data);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("OCR extraction failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Full pipeline: text layer, MRZ strip, then full-page OCR
+     */
+    public OCRResult extractText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        return extract(fileBytes, fileName, deadline, new Passes(true, mrzFastPathEnabled, true));
+    }
+
+    /**
+     * Full-page OCR, preceded by the text layer and MRZ strip only where asked
+     * for - a provider chain that already ran those elsewhere skips them here
+     */
+    public OCRResult extractPageText(byte[] fileBytes, String fileName, ScreeningDeadline deadline,
+                                     boolean textLayer, boolean mrzStrip) throws IOException {
+        return extract(fileBytes, fileName, deadline, new Passes(textLayer, mrzStrip && mrzFastPathEnabled, true));
+    }
+
+    /**
+     * MRZ strip only: no text layer and no full-page fallback. The result has
+     * a name only when a checksum-valid MRZ was read.
+     */
+    public OCRResult extractMrzText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        return extract(fileBytes, fileName, deadline, new Passes(false, true, false));
+    }
+
+    private OCRResult extract(byte[] fileBytes, String fileName, ScreeningDeadline deadline, Passes passes) throws IOException {
+        if (fileBytes == null || fileBytes.length == 0) throw new IOException("File data is empty");
         long startTime = System.currentTimeMillis();
         try {
-            byte[] fileBytes = Base64.getDecoder().decode(base64Data);
-            String extractedText = extractTextSmartly(fileBytes, fileName);
-            String extractedName = extractName(extractedText);
-            double confidence = calculateConfidence(extractedName, extractedText);
+            DocumentText document = extractTextSmartly(fileBytes, fileName, deadline, passes);
+            String extractedName;
+            double confidence;
+            if (document.mrz != null) {
+                // Check digits already validated - no need to guess from the full text
+                extractedName = document.mrz.fullName();
+            } else {
+                extractedName = extractName(document.text);
+            }
+            confidence = calculateConfidence(extractedName, document.text, document.wordConfidence, document.mrz);
             double processingTime = (System.currentTimeMillis() - startTime) / 1000.0;
-            return new OCRResult(extractedName, confidence, extractedText, processingTime);
+            OCRResult result = new OCRResult(extractedName, confidence, document.text, processingTime);
+            result.complete = document.complete;
+            result.pagesProcessed = document.pagesProcessed;
+            result.totalPages = document.totalPages;
+            result.path = document.path;
+            metrics.increment("path." + document.path);
+            logger.info("OCR served by {} path in {}s", document.path, processingTime);
+            return result;
+        } catch (OcrCapacityException | DocumentRejectedException e) {
+            throw e;
         } catch (Exception e) {
             throw new IOException("OCR extraction failed: " + e.getMessage(), e);
         }
     }
 
-    private String extractTextSmartly(byte[] fileBytes, String fileName) throws IOException {
-        if (fileName != null && fileName.toLowerCase().endsWith(".pdf")) {
+    private DocumentText extractTextSmartly(byte[] fileBytes, String fileName, ScreeningDeadline deadline,
+                                            Passes passes) throws IOException {
+        // The content decides, not the file name - phone uploads are often misnamed
+        String type = detectType(fileBytes);
+        if (TYPE_UNKNOWN.equals(type)) {
+            logger.warn("Unsupported document type for '{}', nothing to OCR", fileName);
+            return new DocumentText("", 0, 0, true);
+        }
+        try {
+            return TYPE_PDF.equals(type)
+                ? extractWithOCR(fileBytes, deadline, passes)
+                : extractFromImage(fileBytes, type, deadline, passes);
+        } catch (OcrCapacityException | DocumentRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Could not read {} document '{}': {}", type, fileName, e.getMessage());
+            // Nothing was read, so the result must not pass for a complete "no name found"
+            return new DocumentText("", 0, 0, false);
+        }
+    }
+
+    /**
+     * Cheap upfront checks so that oversized, unsupported or malformed uploads
+     * are refused with a clear reason before any provider starts working on them.
+     */
+    public void checkDocument(byte[] fileBytes) throws DocumentRejectedException {
+        if (fileBytes.length > maxDocumentBytes) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.TOO_LARGE,
+                "Document is " + (fileBytes.length >> 10) + " KB, the limit is " + (maxDocumentBytes >> 10) + " KB");
+        }
+        String type = detectType(fileBytes);
+        if (TYPE_UNKNOWN.equals(type)) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.UNSUPPORTED_TYPE,
+                "Unsupported document type - upload a PDF, JPEG or PNG");
+        }
+        if (TYPE_PDF.equals(type)) {
+            try (PDDocument document = loadPdf(fileBytes)) {
+                pixelBudgetDpis(document);
+            } catch (InvalidPasswordException e) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.UNREADABLE,
+                    "PDF is password protected");
+            } catch (DocumentRejectedException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.UNREADABLE,
+                    "PDF could not be parsed: " + e.getMessage());
+            }
+            return;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(fileBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.UNSUPPORTED_TYPE,
+                    "No decoder available for " + type + " images");
+            }
+            ImageReader reader = readers.next();
             try {
-                return extractWithOCR(fileBytes);
-            } catch (Exception e) {
-                return "";
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > imageMaxSourcePixels) {
+                    throw new DocumentRejectedException(DocumentRejectedException.Reason.PAGE_TOO_LARGE,
+                        "Image has " + pixels + " pixels, the limit is " + imageMaxSourcePixels);
+                }
+            } finally {
+                reader.dispose();
             }
+        } catch (DocumentRejectedException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.UNREADABLE,
+                type + " image could not be read: " + e.getMessage());
         }
-        return "";
     }
 
-    private String extractWithOCR(byte[] pdfBytes) throws Exception {
-        StringBuilder result = new StringBuilder();
-        try (PDDocument document = PDDocument.load(pdfBytes)) {
+    /**
+     * Parsed objects and decoded streams beyond the main-memory budget go to a scratch file
+     */
+    private PDDocument loadPdf(byte[] pdfBytes) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(pdfMainMemoryBytes).setTempDir(new File(pdfTempDir));
+        return PDDocument.load(pdfBytes, "", null, null, memory);
+    }
+
+    /**
+     * Highest DPI each page can be rendered at within app.ocr.max-page-pixels;
+     * also enforces the page count and minimum usable resolution.
+     */
+    private int[] pixelBudgetDpis(PDDocument document) throws DocumentRejectedException {
+        int totalPages = document.getNumberOfPages();
+        if (totalPages > maxPages) {
+            throw new DocumentRejectedException(DocumentRejectedException.Reason.TOO_MANY_PAGES,
+                "PDF has " + totalPages + " pages, the limit is " + maxPages);
+        }
+        int[] dpis = new int[totalPages];
+        for (int i = 0; i < totalPages; i++) {
+            PDPage page = document.getPage(i);
+            PDRectangle box = page.getCropBox();
+            double squareInches = (box.getWidth() / 72.0) * (box.getHeight() / 72.0);
+            dpis[i] = squareInches > 0 ? (int) Math.sqrt(maxPagePixels / squareInches) : Integer.MAX_VALUE;
+            if (dpis[i] < minPageDpi) {
+                throw new DocumentRejectedException(DocumentRejectedException.Reason.PAGE_TOO_LARGE,
+                    "Page " + (i + 1) + " is " + Math.round(box.getWidth() / 72.0) + "x"
+                        + Math.round(box.getHeight() / 72.0) + " inches, too large to render at a readable resolution");
+            }
+        }
+        return dpis;
+    }
+
+    /**
+     * Document type from the leading magic bytes
+     */
+    static String detectType(byte[] bytes) {
+        if (startsWith(bytes, 0xFF, 0xD8, 0xFF)) return TYPE_JPEG;
+        if (startsWith(bytes, 0x89, 'P', 'N', 'G')) return TYPE_PNG;
+        if (startsWith(bytes, 'I', 'I', 0x2A, 0x00) || startsWith(bytes, 'M', 'M', 0x00, 0x2A)) return TYPE_TIFF;
+        // PDF readers accept the header anywhere in the first 1KB
+        int limit = Math.min(bytes.length, 1024) - 5;
+        for (int i = 0; i <= limit; i++) {
+            if (bytes[i] == '%' && bytes[i + 1] == 'P' && bytes[i + 2] == 'D' && bytes[i + 3] == 'F' && bytes[i + 4] == '-') {
+                return TYPE_PDF;
+            }
+        }
+        return TYPE_UNKNOWN;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... magic) {
+        if (bytes.length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if ((bytes[i] & 0xFF) != magic[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Photographed / scanned page uploaded as an image: decoded at a subsampled
+     * resolution per DPI rung and run through the same page pipeline as a PDF page.
+     */
+    private DocumentText extractFromImage(byte[] imageBytes, String type, ScreeningDeadline deadline,
+                                          Passes passes) throws IOException {
+        SubsampledImage source = new SubsampledImage(imageBytes, type);
+        PageText page = ocrPage(source, 0, deadline, new DocumentProgress(), passes);
+        if (page == null) {
+            return new DocumentText("", 0, 1, false);
+        }
+        DocumentText documentText = new DocumentText(page.text + "\n", 1, 1, true);
+        documentText.mrz = page.mrz;
+        documentText.path = page.mrz != null ? PATH_MRZ_STRIP : PATH_FULL_PAGE;
+        documentText.wordConfidence = page.wordConfidence;
+        return documentText;
+    }
+
+    /**
+     * Digitally generated PDFs already carry the text - read it instead of
+     * rasterizing when it contains a valid MRZ or the labelled name fields.
+     * @return the text layer result, or null if the document has to be OCR'd
+     */
+    private DocumentText extractTextLayer(PDDocument document) {
+        String text;
+        try {
+            text = new PDFTextStripper().getText(document);
+        } catch (IOException e) {
+            logger.debug("PDF text layer could not be read: {}", e.getMessage());
+            return null;
+        }
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+
+        int totalPages = document.getNumberOfPages();
+        MrzParser.MrzData mrz = MrzParser.parse(text);
+        if (mrz != null && mrz.valid) {
+            DocumentText result = new DocumentText(text, totalPages, totalPages, true);
+            result.mrz = mrz;
+            result.path = PATH_TEXT_LAYER;
+            return result;
+        }
+        if (!extractLabelledName(text).isEmpty()) {
+            DocumentText result = new DocumentText(text, totalPages, totalPages, true);
+            result.path = PATH_TEXT_LAYER;
+            return result;
+        }
+        return null;
+    }
+
+    private DocumentText extractWithOCR(byte[] pdfBytes, ScreeningDeadline deadline, Passes passes) throws Exception {
+        try (PDDocument document = loadPdf(pdfBytes)) {
+            int[] maxDpis = pixelBudgetDpis(document);
+            DocumentText textLayer = passes.textLayer ? extractTextLayer(document) : null;
+            if (textLayer != null) {
+                return textLayer;
+            }
+
             PDFRenderer renderer = new PDFRenderer(document);
-            ITesseract tesseract = createTesseract();
-            for (int i = 0; i < document.getNumberOfPages(); i++) {
-                BufferedImage page = renderer.renderImageWithDPI(i, 300);
-                // CHANGE: Removed cropMRZ because the Name "ANKIT MUKESH" is in the middle of the page 
-                BufferedImage processed = preprocessForOCR(page); 
-                String text = tesseract.doOCR(processed);
-                if (text != null) result.append(text).append("\n");
+            int totalPages = document.getNumberOfPages();
+
+            DocumentProgress progress = new DocumentProgress();
+            // Caps how many pages of this document are rendered/OCR'd at once
+            Semaphore inFlight = new Semaphore(maxParallelPages);
+            List<Future<PageText>> pages = new ArrayList<>(Collections.<Future<PageText>>nCopies(totalPages, null));
+            try {
+                for (int pageIndex : pageOrder(totalPages)) {
+                    if (deadline.isExpired()
+                            || !inFlight.tryAcquire(deadline.remainingMillis(), TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                    // Stop handing out pages as soon as one of them produced the name
+                    if (progress.nameFound) {
+                        inFlight.release();
+                        break;
+                    }
+                    final int index = pageIndex;
+                    PageRaster raster = new PdfPageRaster(renderer, index, maxDpis[index]);
+                    try {
+                        pages.set(index, pageExecutor.submit(() -> {
+                            try {
+                                return ocrPage(raster, index, deadline, progress, passes);
+                            } finally {
+                                inFlight.release();
+                            }
+                        }));
+                    } catch (TaskRejectedException e) {
+                        inFlight.release();
+                        throw new OcrCapacityException("OCR page queue is full");
+                    }
+                }
+            } finally {
+                // Pages still queued bail out on the deadline; wait for the rest so the
+                // document is never closed underneath a page that is being rendered
+                inFlight.acquireUninterruptibly(maxParallelPages);
             }
+
+            // Reassemble in page order
+            StringBuilder result = new StringBuilder();
+            MrzParser.MrzData mrz = null;
+            double confidenceSum = 0;
+            int pagesRead = 0;
+            int pagesSkipped = 0;
+            int pagesNotNeeded = 0;
+            // Pages whose OCR threw - missing text, so never a complete result
+            int pagesFailed = 0;
+            OcrCapacityException capacityFailure = null;
+            for (int i = 0; i < totalPages; i++) {
+                Future<PageText> pending = pages.get(i);
+                if (pending == null) {
+                    if (progress.nameFound) pagesNotNeeded++; else pagesSkipped++;
+                    continue;
+                }
+                try {
+                    PageText page = pending.get();
+                    if (page == null) {
+                        pagesSkipped++;
+                        continue;
+                    }
+                    if (page == PageText.NOT_NEEDED) {
+                        pagesNotNeeded++;
+                        continue;
+                    }
+                    result.append(page.text).append("\n");
+                    if (mrz == null && page.mrz != null) {
+                        mrz = page.mrz;
+                    }
+                    confidenceSum += page.wordConfidence;
+                    pagesRead++;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof OcrCapacityException) {
+                        capacityFailure = (OcrCapacityException) e.getCause();
+                    } else {
+                        logger.warn("OCR failed for page {}: {}", i + 1, e.getCause().getMessage());
+                        pagesFailed++;
+                    }
+                    pagesSkipped++;
+                }
+            }
+            if (pagesNotNeeded > 0) {
+                metrics.add("pages.skipped_after_name_found", pagesNotNeeded);
+            }
+            if (pagesRead == 0 && capacityFailure != null) {
+                throw capacityFailure;
+            }
+            // Once the name is known the remaining pages are not needed - the result is complete
+            boolean complete = (progress.nameFound || pagesSkipped == 0) && pagesFailed == 0;
+            if (pagesFailed > 0) {
+                logger.warn("OCR read {}/{} pages - {} failed", pagesRead, totalPages, pagesFailed);
+            } else if (!complete) {
+                logger.warn("OCR stopped after {}/{} pages - deadline {}", pagesRead, totalPages,
+                    deadline.isCancelled() ? "cancelled" : "expired");
+            }
+            DocumentText documentText = new DocumentText(result.toString(), pagesRead, totalPages, complete);
+            documentText.mrz = mrz;
+            documentText.path = mrz != null ? PATH_MRZ_STRIP : PATH_FULL_PAGE;
+            documentText.wordConfidence = pagesRead > 0 ? confidenceSum / pagesRead : 0;
+            return documentText;
         }
-        return result.toString();
     }
 
-    private ITesseract createTesseract() {
-        Tesseract tesseract = new Tesseract();
-        tesseract.setLanguage("eng");
-        tesseract.setPageSegMode(3); // CHANGE: Mode 3 is better for full page layouts
-        // CHANGE: Removed strict whitelist so it can read "Surname" and "Given Name" labels 
-        tesseract.setTessVariable("tessedit_char_whitelist", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz< ");
-        
-        String tessData = System.getenv("TESSDATA_PREFIX");
-        if (tessData == null) tessData = "C:\\Program Files\\Tesseract-OCR\\tessdata";
-        tesseract.setDatapath(tessData);
-        return tesseract;
+    /**
+     * Renders and OCRs one page (on the page executor for PDFs).
+     * The page is rendered at the first rung of the DPI ladder and only
+     * re-rendered at the next one when the attempt is not good enough.
+     * @return the best attempt, null if the deadline passed before the page was read,
+     *         or NOT_NEEDED if another page found the name first
+     */
+    private PageText ocrPage(PageRaster raster, int pageIndex, ScreeningDeadline deadline,
+                             DocumentProgress progress, Passes passes) throws IOException {
+        PageText best = null;
+        for (int level = 0; level < dpiLadder.length; level++) {
+            if (deadline.isExpired()) break;
+            // Checked on every level, so a page stops escalating once another page has the name
+            if (progress.nameFound) {
+                return best != null ? best : PageText.NOT_NEEDED;
+            }
+            int dpi = dpiLadder[level];
+            if (level > 0) {
+                metrics.increment("escalation.dpi_" + dpiLadder[level - 1] + "_to_" + dpi);
+            }
+
+            BufferedImage page = raster.render(dpi);
+            if (page == null) break; // source has no more detail to offer
+            metrics.increment("render.dpi_" + dpi);
+            // The whole page is kept: recognizePage reads the MRZ band from it first and
+            // falls back to the full page, where the visual-zone name sits
+            BufferedImage processed = PagePreprocessor.preprocess(page, dpi);
+            // Rendering takes a while - re-check before handing it to Tesseract
+            if (deadline.isExpired()) break;
+
+            PageText attempt = recognizePage(processed, dpi, deadline, passes);
+            if (attempt == null) break;
+            if (attempt.mrz != null) {
+                logger.debug("Page {} served from MRZ strip at {} DPI", pageIndex + 1, dpi);
+                progress.nameFound = true;
+                return attempt;
+            }
+            if (best == null || attempt.wordConfidence >= best.wordConfidence) {
+                best = attempt;
+            }
+            boolean hasName = !extractName(attempt.text).isEmpty();
+            if (hasName && attempt.wordConfidence >= escalationConfidence) {
+                progress.nameFound = true;
+                break;
+            }
+        }
+        return best;
     }
 
-    private BufferedImage preprocessForOCR(BufferedImage input) {
-        BufferedImage gray = new BufferedImage(input.getWidth(), input.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g = gray.createGraphics();
-        g.drawImage(input, 0, 0, null);
-        g.dispose();
-        return gray; // Simplification: Grayscale is often more robust for scans
+    /**
+     * Order in which pages are handed out, from app.ocr.page-order:
+     * "natural", "reverse", or 1-based page numbers to try first (e.g. "2,1"),
+     * followed by the remaining pages in natural order.
+     */
+    private int[] pageOrder(int totalPages) {
+        int[] order = new int[totalPages];
+        String setting = pageOrder == null ? "" : pageOrder.trim().toLowerCase();
+        if ("reverse".equals(setting)) {
+            for (int i = 0; i < totalPages; i++) order[i] = totalPages - 1 - i;
+            return order;
+        }
+
+        boolean[] taken = new boolean[totalPages];
+        int next = 0;
+        if (!setting.isEmpty() && !"natural".equals(setting)) {
+            for (String token : setting.split(",")) {
+                try {
+                    int pageIndex = Integer.parseInt(token.trim()) - 1;
+                    if (pageIndex >= 0 && pageIndex < totalPages && !taken[pageIndex]) {
+                        taken[pageIndex] = true;
+                        order[next++] = pageIndex;
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid app.ocr.page-order entry '{}'", token);
+                }
+            }
+        }
+        for (int i = 0; i < totalPages; i++) {
+            if (!taken[i]) order[next++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * MRZ strip first, full page only when its check digits do not validate.
+     * Without the full-page pass an empty page text means no valid MRZ.
+     * @return null if the deadline passed between the two passes
+     */
+    private PageText recognizePage(BufferedImage processed, int dpi, ScreeningDeadline deadline,
+                                   Passes passes) throws IOException {
+        OcrEngine engine = enginePool.borrow(deadline);
+        boolean engineFailed = true;
+        try {
+            if (passes.mrzStrip) {
+                BufferedImage band = locateMrzBand(processed);
+                if (band != null) {
+                    String mrzText = engine.recognize(band, dpi, MRZ_PROFILE).text;
+                    MrzParser.MrzData mrz = MrzParser.parse(mrzText);
+                    if (mrz != null && mrz.valid) {
+                        engineFailed = false;
+                        return new PageText(mrzText, mrz, 1.0);
+                    }
+                }
+                if (deadline.isExpired()) {
+                    engineFailed = false;
+                    return null;
+                }
+                if (!passes.fullPage) {
+                    engineFailed = false;
+                    return new PageText("", null, 0);
+                }
+            }
+            TesseractEngine.Recognition recognition = engine.recognize(processed, dpi, enginePool.getFullPageProfile());
+            engineFailed = false;
+            return new PageText(recognition.text != null ? recognition.text : "", null,
+                Math.max(0, recognition.meanConfidence) / 100.0);
+        } finally {
+            if (engineFailed) {
+                enginePool.discard(engine);
+            } else {
+                enginePool.release(engine);
+            }
+        }
+    }
+
+    /**
+     * Crops the bottom band of the page where the two MRZ lines sit, trimmed to
+     * the rows that actually contain ink.
+     * @return the band, or null if it is blank
+     */
+    private BufferedImage locateMrzBand(BufferedImage page) {
+        int width = page.getWidth();
+        int height = page.getHeight();
+        int top = (int) (height * (1 - mrzBandFraction));
+        Raster raster = page.getRaster();
+        int[] row = new int[width];
+        int minInk = Math.max(1, width / 100);
+        int first = -1;
+        int last = -1;
+        for (int y = top; y < height; y++) {
+            raster.getSamples(0, y, width, 1, 0, row);
+            int ink = 0;
+            for (int value : row) {
+                if (value < 128) ink++;
+            }
+            if (ink >= minInk) {
+                if (first < 0) first = y;
+                last = y;
+            }
+        }
+        if (first < 0) {
+            return null;
+        }
+        int margin = (last - first) / 10 + 4;
+        int y0 = Math.max(top, first - margin);
+        int y1 = Math.min(height, last + margin + 1);
+        return page.getSubimage(0, y0, width, y1 - y0);
     }
 
     private String extractName(String text) {
         if (text == null || text.isEmpty()) return "";
         
-        // 1. Try MRZ first
+        // 1. Try MRZ first - a checksum-valid TD3 zone wins over the loose pattern
+        MrzParser.MrzData parsed = MrzParser.parse(text);
+        if (parsed != null && parsed.valid) {
+            return parsed.fullName();
+        }
         Matcher mrz = MRZ_PATTERN.matcher(text.replace(" ", ""));
         if (mrz.find()) {
             return (mrz.group(2).replace("<", " ").trim() + " " + mrz.group(1).replace("<", "").trim()).toUpperCase();
         }
 
         // 2. Try Structured Fields
+        return extractLabelledName(text);
+    }
+
+    private String extractLabelledName(String text) {
         String surname = "";
         String given = "";
         Matcher sM = SURNAME_PATTERN.matcher(text);
@@ -126,7 +731,179 @@ public class OCRService {
     }
 
     public double calculateConfidence(String extractedName, String fullText) {
-        return (extractedName != null && !extractedName.isEmpty()) ? 0.85 : 0.3;
+        return calculateConfidence(extractedName, fullText, 0.9, null);
+    }
+
+    /**
+     * @param wordConfidence Tesseract mean word confidence (0-1), 1.0 for text layers
+     * @param mrz MRZ the name came from, if any
+     */
+    public double calculateConfidence(String extractedName, String fullText, double wordConfidence,
+                                      MrzParser.MrzData mrz) {
+        if (mrz != null && mrz.valid) {
+            return MRZ_CONFIDENCE;
+        }
+        if (extractedName == null || extractedName.isEmpty()) {
+            return 0.3 * wordConfidence;
+        }
+        return Math.min(0.9, 0.4 + 0.5 * wordConfidence);
+    }
+
+    private static class PageText {
+        static final PageText NOT_NEEDED = new PageText("", null, 0);
+
+        final String text;
+        // Set when the page was served from a checksum-valid MRZ strip
+        final MrzParser.MrzData mrz;
+        // Tesseract mean word confidence, 0-1
+        final double wordConfidence;
+
+        PageText(String text, MrzParser.MrzData mrz, double wordConfidence) {
+            this.text = text;
+            this.mrz = mrz;
+            this.wordConfidence = wordConfidence;
+        }
+    }
+
+    /**
+     * Produces the page image for one rung of the DPI ladder
+     */
+    private interface PageRaster {
+        /**
+         * @return the page at (about) the given DPI, or null if it has no more detail to offer
+         */
+        BufferedImage render(int dpi) throws IOException;
+    }
+
+    /**
+     * One PDF page, rendered at the requested DPI unless that would exceed the
+     * page pixel budget. PDFBox documents are not thread-safe, so rendering is
+     * serialized on the renderer while OCR runs in parallel.
+     */
+    private class PdfPageRaster implements PageRaster {
+        private final PDFRenderer renderer;
+        private final int pageIndex;
+        private final int maxDpi;
+        private int lastDpi;
+
+        PdfPageRaster(PDFRenderer renderer, int pageIndex, int maxDpi) {
+            this.renderer = renderer;
+            this.pageIndex = pageIndex;
+            this.maxDpi = maxDpi;
+        }
+
+        @Override
+        public BufferedImage render(int dpi) throws IOException {
+            int effectiveDpi = Math.min(dpi, maxDpi);
+            if (effectiveDpi == lastDpi) {
+                return null; // already at the budget
+            }
+            if (effectiveDpi < dpi) {
+                metrics.increment("render.dpi_capped");
+            }
+            lastDpi = effectiveDpi;
+            synchronized (renderer) {
+                // 8-bit gray straight from the renderer: no ARGB page, no second gray copy
+                return renderer.renderImageWithDPI(pageIndex, effectiveDpi, ImageType.GRAY);
+            }
+        }
+    }
+
+    /**
+     * Uploaded image decoded through ImageIO with source subsampling, so only
+     * the pixels a rung needs (and never more than app.ocr.image.max-pixels)
+     * are materialized - a 12MP photo is never decoded at full size.
+     */
+    private class SubsampledImage implements PageRaster {
+        private final byte[] bytes;
+        private final String type;
+        private int width = -1;
+        private int height;
+        private int lastSubsampling;
+
+        SubsampledImage(byte[] bytes, String type) {
+            this.bytes = bytes;
+            this.type = type;
+        }
+
+        @Override
+        public BufferedImage render(int dpi) throws IOException {
+            try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    throw new IOException("No image decoder available for " + type);
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    if (width < 0) {
+                        // Header only - no pixels decoded yet
+                        width = reader.getWidth(0);
+                        height = reader.getHeight(0);
+                    }
+                    int subsampling = subsamplingFor(dpi);
+                    if (subsampling == lastSubsampling) {
+                        return null;
+                    }
+                    lastSubsampling = subsampling;
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        private int subsamplingFor(int dpi) {
+            double nativeDpi = width / (imageAssumedWidthMm / 25.4);
+            int subsampling = Math.max(1, (int) Math.floor(nativeDpi / dpi));
+            long budget = Math.min(imageMaxPixels, maxPagePixels);
+            while ((long) (width / subsampling) * (height / subsampling) > budget) {
+                subsampling++;
+            }
+            return subsampling;
+        }
+    }
+
+    /**
+     * Which stages of the pipeline one extraction runs
+     */
+    private static final class Passes {
+        final boolean textLayer;
+        final boolean mrzStrip;
+        final boolean fullPage;
+
+        Passes(boolean textLayer, boolean mrzStrip, boolean fullPage) {
+            this.textLayer = textLayer;
+            this.mrzStrip = mrzStrip;
+            this.fullPage = fullPage;
+        }
+    }
+
+    /**
+     * State shared by the pages of one document while they are OCR'd
+     */
+    private static class DocumentProgress {
+        volatile boolean nameFound;
+    }
+
+    private static class DocumentText {
+        final String text;
+        final int pagesProcessed;
+        final int totalPages;
+        final boolean complete;
+        MrzParser.MrzData mrz;
+        String path = PATH_NONE;
+        // Text layers are exact; OCR'd documents overwrite this with the page average
+        double wordConfidence = 1.0;
+
+        DocumentText(String text, int pagesProcessed, int totalPages, boolean complete) {
+            this.text = text;
+            this.pagesProcessed = pagesProcessed;
+            this.totalPages = totalPages;
+            this.complete = complete;
+        }
     }
 
     public static class OCRResult {
@@ -134,6 +911,17 @@ public class OCRService {
         public double confidence;
         public String fullText;
         public double processingTime;
+        // false when the deadline stopped OCR before every page was read
+        public boolean complete = true;
+        public int pagesProcessed;
+        public int totalPages;
+        // TEXT_LAYER, MRZ_STRIP, FULL_PAGE or NONE
+        public String path = PATH_NONE;
+        // OCRProvider that produced the result (set by OCRProviderRegistry)
+        public String provider;
+
+        public OCRResult() {
+        }
 
         public OCRResult(String extractedName, double confidence, String fullText, double processingTime) {
             this.extractedName = extractedName;
@@ -0,0 +1,14 @@
+package com.passport.screening.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when no OCR engine became free within the borrow timeout.
+ * Callers should surface it as "busy, retry later" instead of a failure.
+ */
+public class OcrCapacityException extends IOException {
+
+    public OcrCapacityException(String message) {
+        super(message);
+    }
+}
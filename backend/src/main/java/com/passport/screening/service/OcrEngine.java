@@ -0,0 +1,38 @@
+package com.passport.screening.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * A Tesseract engine borrowed from TesseractEnginePool: either in-process
+ * (TesseractEngine) or a worker process (OcrWorkerProcess). Not thread-safe.
+ */
+public interface OcrEngine extends AutoCloseable {
+
+    /**
+     * OCR a single image
+     * @param image page image; converted to 8-bit gray if needed
+     * @param dpi resolution the image was rendered at
+     * @param profile segmentation mode and character set for this image
+     */
+    TesseractEngine.Recognition recognize(BufferedImage image, int dpi, TesseractEngine.Profile profile) throws IOException;
+
+    int getJobs();
+
+    /**
+     * True when the engine should be replaced instead of returned to the pool
+     */
+    default boolean needsRecycling() {
+        return false;
+    }
+
+    /**
+     * Cheap liveness probe used by the pool's health check
+     */
+    default boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,302 @@
+package com.passport.screening.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed cache of OCR results.
+ * Keys are the SHA-256 of the uploaded bytes plus the OCR configuration
+ * version, so a resubmitted document (retry, rescreen after a list refresh)
+ * skips OCR entirely while a pipeline/config change misses cleanly.
+ * A small in-heap LRU sits in front of a bounded directory of JSON files
+ * that survives restarts; both tiers honour the same max age, counted from
+ * when the result was stored (reads only refresh the LRU order). The disk
+ * tier is owner-only and keeps just what a rescreen needs - never the OCR
+ * text of the document.
+ */
+@Component
+public class OcrResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(OcrResultCache.class);
+
+    private static final String SUFFIX = ".json";
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private static final Set<PosixFilePermission> OWNER_DIR = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_FILE = PosixFilePermissions.fromString("rw-------");
+
+    @Value("${app.ocr.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ocr.cache.memory-entries:500}")
+    private int memoryEntries;
+
+    @Value("${app.ocr.cache.max-age-hours:168}")
+    private long maxAgeHours;
+
+    @Value("${app.ocr.cache.disk.enabled:true}")
+    private boolean diskEnabled;
+
+    @Value("${app.ocr.cache.disk.dir:${user.home}/.passport-screening/ocr-cache}")
+    private String diskDir;
+
+    @Value("${app.ocr.cache.disk.max-bytes:268435456}")
+    private long diskMaxBytes;
+
+    private final ObjectMapper objectMapper;
+    private final OcrMetrics metrics;
+    private Map<String, CachedResult> memory;
+    private File directory;
+
+    public OcrResultCache(ObjectMapper objectMapper, OcrMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        memory = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        if (enabled && diskEnabled) {
+            try {
+                Path path = new File(diskDir).toPath();
+                if (POSIX) {
+                    Files.createDirectories(path, PosixFilePermissions.asFileAttribute(OWNER_DIR));
+                    // Also tightens a directory left by an older version
+                    Files.setPosixFilePermissions(path, OWNER_DIR);
+                } else {
+                    Files.createDirectories(path);
+                }
+                directory = path.toFile();
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.warn("OCR cache directory {} is not writable, disk tier disabled: {}", diskDir, e.getMessage());
+            }
+        }
+        logger.info("OCR result cache - enabled: {}, memory entries: {}, disk: {}",
+            enabled, memoryEntries, directory != null ? directory.getAbsolutePath() : "off");
+    }
+
+    /**
+     * @param configVersion identifies every setting that changes the OCR output
+     */
+    public String key(byte[] content, String configVersion) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder key = new StringBuilder(digest.length * 2 + configVersion.length() + 1);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.append('-').append(configVersion).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return a copy of the cached result, or null on a miss
+     */
+    public OCRService.OCRResult get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            CachedResult entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.storedAt, now)) {
+                    metrics.increment("cache.hit_memory");
+                    return copy(entry.result);
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (directory != null) {
+            File file = new File(directory, key + SUFFIX);
+            // The modification time is the last use, never older than the store time
+            if (file.isFile() && !isExpired(file.lastModified(), now)) {
+                try {
+                    DiskEntry entry = objectMapper.readValue(file, DiskEntry.class);
+                    if (isExpired(entry.storedAt, now)) {
+                        file.delete();
+                    } else {
+                        OCRService.OCRResult result = entry.toResult();
+                        // Keeps recently used files at the back of the size-based eviction order
+                        file.setLastModified(now);
+                        synchronized (memory) {
+                            memory.put(key, new CachedResult(result, entry.storedAt));
+                        }
+                        metrics.increment("cache.hit_disk");
+                        return copy(result);
+                    }
+                } catch (IOException e) {
+                    logger.warn("Dropping unreadable OCR cache file {}: {}", file.getName(), e.getMessage());
+                    file.delete();
+                }
+            }
+        }
+        metrics.increment("cache.miss");
+        return null;
+    }
+
+    /**
+     * Only complete results are cached - a deadline-truncated read must be retried
+     */
+    public void put(String key, OCRService.OCRResult result) {
+        if (!enabled || !result.complete) {
+            return;
+        }
+        OCRService.OCRResult stored = copy(result);
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            memory.put(key, new CachedResult(stored, now));
+        }
+        if (directory != null) {
+            File file = new File(directory, key + SUFFIX);
+            try {
+                // Write then rename so a crash never leaves a half-written entry behind
+                Path tmp = POSIX
+                    ? Files.createTempFile(directory.toPath(), key, ".tmp", PosixFilePermissions.asFileAttribute(OWNER_FILE))
+                    : Files.createTempFile(directory.toPath(), key, ".tmp");
+                objectMapper.writeValue(tmp.toFile(), new DiskEntry(stored, now));
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Could not write OCR cache file {}: {}", file.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies the retention limits: expired entries go first, then the least
+     * recently used files until the directory is back under its byte budget.
+     */
+    @Scheduled(fixedDelayString = "${app.ocr.cache.cleanup-interval-ms:3600000}")
+    public void enforceRetention() {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            for (Iterator<CachedResult> it = memory.values().iterator(); it.hasNext(); ) {
+                if (isExpired(it.next().storedAt, now)) {
+                    it.remove();
+                }
+            }
+        }
+        if (directory == null) {
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        int removed = 0;
+        for (File file : files) {
+            // Untouched since the max age means stored before it; entries read
+            // since are expired by their store time on the next read
+            boolean stale = isExpired(file.lastModified(), now)
+                || (!file.getName().endsWith(SUFFIX) && now - file.lastModified() > TimeUnit.HOURS.toMillis(1));
+            if (stale || totalBytes > diskMaxBytes) {
+                long length = file.length();
+                if (file.delete()) {
+                    totalBytes -= length;
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.info("OCR cache retention removed {} files, {} bytes remaining", removed, totalBytes);
+        }
+    }
+
+    private boolean isExpired(long storedAt, long now) {
+        return now - storedAt > TimeUnit.HOURS.toMillis(maxAgeHours);
+    }
+
+    private static OCRService.OCRResult copy(OCRService.OCRResult source) {
+        OCRService.OCRResult copy = new OCRService.OCRResult(source.extractedName, source.confidence,
+            source.fullText, source.processingTime);
+        copy.complete = source.complete;
+        copy.pagesProcessed = source.pagesProcessed;
+        copy.totalPages = source.totalPages;
+        copy.path = source.path;
+        copy.provider = source.provider;
+        return copy;
+    }
+
+    /**
+     * What the disk tier keeps of a result: enough to rematch the name,
+     * no document text
+     */
+    static final class DiskEntry {
+        public long storedAt;
+        public String extractedName;
+        public double confidence;
+        public String path;
+        public boolean complete;
+        public int pagesProcessed;
+        public int totalPages;
+        public String provider;
+
+        DiskEntry() {
+        }
+
+        DiskEntry(OCRService.OCRResult result, long storedAt) {
+            this.storedAt = storedAt;
+            this.extractedName = result.extractedName;
+            this.confidence = result.confidence;
+            this.path = result.path;
+            this.complete = result.complete;
+            this.pagesProcessed = result.pagesProcessed;
+            this.totalPages = result.totalPages;
+            this.provider = result.provider;
+        }
+
+        OCRService.OCRResult toResult() {
+            OCRService.OCRResult result = new OCRService.OCRResult(extractedName, confidence, null, 0);
+            result.path = path;
+            result.complete = complete;
+            result.pagesProcessed = pagesProcessed;
+            result.totalPages = totalPages;
+            result.provider = provider;
+            return result;
+        }
+    }
+
+    private static final class CachedResult {
+        final OCRService.OCRResult result;
+        final long storedAt;
+
+        CachedResult(OCRService.OCRResult result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.passport.screening.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point of an OCR worker process (started by TesseractEnginePool when
+ * app.ocr.workers.enabled is set). Holds one native Tesseract engine and
+ * serves OcrWorkerProtocol requests on stdin/stdout until told to stop or
+ * the parent goes away, so a native crash or leak only takes this process down.
+ * Arguments: tessdata path, language, page segmentation mode, character whitelist.
+ */
+public final class OcrWorkerMain {
+
+    private OcrWorkerMain() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        // stdout carries the protocol - anything else printing goes to stderr
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+
+        TesseractEngine engine = new TesseractEngine(args[0], args[1],
+            new TesseractEngine.Profile(Integer.parseInt(args[2]), args.length > 3 ? args[3] : ""));
+        out.writeUTF(OcrWorkerProtocol.HELLO);
+        out.writeLong(currentPid());
+        out.flush();
+
+        try {
+            while (true) {
+                int op = in.read();
+                if (op < 0 || op == OcrWorkerProtocol.OP_SHUTDOWN) {
+                    return;
+                }
+                if (op == OcrWorkerProtocol.OP_PING) {
+                    out.writeByte(OcrWorkerProtocol.STATUS_OK);
+                    out.writeLong(OcrWorkerProtocol.residentBytes("self"));
+                    out.flush();
+                    continue;
+                }
+                if (op != OcrWorkerProtocol.OP_RECOGNIZE) {
+                    throw new IOException("Unknown worker op " + op);
+                }
+
+                int dpi = in.readInt();
+                int pageSegMode = in.readInt();
+                String whitelist = in.readUTF();
+                int width = in.readInt();
+                int height = in.readInt();
+                // Pixels go straight into the image's backing array
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                in.readFully(((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+
+                try {
+                    TesseractEngine.Recognition recognition =
+                        engine.recognize(image, dpi, new TesseractEngine.Profile(pageSegMode, whitelist));
+                    byte[] text = recognition.text.getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(OcrWorkerProtocol.STATUS_OK);
+                    out.writeInt(text.length);
+                    out.write(text);
+                    out.writeInt(recognition.meanConfidence);
+                    out.writeLong(OcrWorkerProtocol.residentBytes("self"));
+                } catch (RuntimeException e) {
+                    out.writeByte(OcrWorkerProtocol.STATUS_ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                }
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // Parent closed the pipe
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static long currentPid() {
+        // "pid@host" on HotSpot; Java 8 has no ProcessHandle
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
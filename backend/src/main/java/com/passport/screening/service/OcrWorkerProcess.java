@@ -0,0 +1,209 @@
+package com.passport.screening.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parent-side handle on one OCR worker process (see OcrWorkerMain).
+ * While a job runs a watchdog kills the worker if it exceeds the job timeout
+ * or its resident memory goes over the cap; the pending read then fails and
+ * the pool discards this engine. Workers are also recycled after a number of
+ * jobs or when they report high RSS between jobs.
+ */
+public class OcrWorkerProcess implements OcrEngine {
+    private static final Logger logger = LoggerFactory.getLogger(OcrWorkerProcess.class);
+
+    private static final long WATCHDOG_PERIOD_MS = 250;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ocr-worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Process process;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final long jobTimeoutMs;
+    private final long maxRssBytes;
+    private final int maxJobs;
+    private final String pid;
+    private byte[] pixels = new byte[0];
+    private volatile String killReason;
+    private long lastRssBytes = -1;
+    private int jobs;
+
+    public OcrWorkerProcess(List<String> command, long startupTimeoutMs, long jobTimeoutMs,
+                            long maxRssBytes, int maxJobs) throws IOException {
+        this.jobTimeoutMs = jobTimeoutMs;
+        this.maxRssBytes = maxRssBytes;
+        this.maxJobs = maxJobs;
+        this.process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+
+        ScheduledFuture<?> startupKill = WATCHDOG.schedule(() -> kill("did not start within " + startupTimeoutMs + " ms"),
+            startupTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            String hello = in.readUTF();
+            if (!OcrWorkerProtocol.HELLO.equals(hello)) {
+                throw new IOException("Unexpected OCR worker greeting: " + hello);
+            }
+            pid = String.valueOf(in.readLong());
+        } catch (IOException e) {
+            process.destroyForcibly();
+            String reason = killReason != null ? killReason
+                : e instanceof EOFException ? "exited before the handshake (see its stderr)" : e.getMessage();
+            throw new IOException("OCR worker failed to start: " + reason, e);
+        } finally {
+            startupKill.cancel(false);
+        }
+        logger.info("Started OCR worker process {}", pid);
+    }
+
+    @Override
+    public TesseractEngine.Recognition recognize(BufferedImage image, int dpi, TesseractEngine.Profile profile) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (pixels.length < width * height) {
+            pixels = new byte[width * height];
+        }
+        // Row by row so sub-images (crops) are copied correctly
+        Raster raster = toGray(image).getRaster();
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            raster.getDataElements(0, y, width, 1, row);
+            System.arraycopy(row, 0, pixels, y * width, width);
+        }
+
+        long started = System.nanoTime();
+        ScheduledFuture<?> watchdog = WATCHDOG.scheduleAtFixedRate(() -> watch(started),
+            WATCHDOG_PERIOD_MS, WATCHDOG_PERIOD_MS, TimeUnit.MILLISECONDS);
+        try {
+            out.writeByte(OcrWorkerProtocol.OP_RECOGNIZE);
+            out.writeInt(dpi);
+            out.writeInt(profile.pageSegMode);
+            out.writeUTF(profile.charWhitelist);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.write(pixels, 0, width * height);
+            out.flush();
+
+            int status = in.readUnsignedByte();
+            if (status != OcrWorkerProtocol.STATUS_OK) {
+                throw new IOException("OCR worker " + pid + " failed: " + in.readUTF());
+            }
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            int meanConfidence = in.readInt();
+            lastRssBytes = in.readLong();
+            jobs++;
+            return new TesseractEngine.Recognition(new String(text, StandardCharsets.UTF_8), meanConfidence);
+        } catch (IOException e) {
+            if (killReason != null) {
+                throw new IOException("OCR worker " + pid + " killed: " + killReason, e);
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    @Override
+    public int getJobs() {
+        return jobs;
+    }
+
+    @Override
+    public boolean needsRecycling() {
+        return !process.isAlive() || jobs >= maxJobs || (maxRssBytes > 0 && lastRssBytes > maxRssBytes);
+    }
+
+    @Override
+    public boolean isHealthy() {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            out.writeByte(OcrWorkerProtocol.OP_PING);
+            out.flush();
+            if (in.readUnsignedByte() != OcrWorkerProtocol.STATUS_OK) {
+                return false;
+            }
+            lastRssBytes = in.readLong();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public long getLastRssBytes() {
+        return lastRssBytes;
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.writeByte(OcrWorkerProtocol.OP_SHUTDOWN);
+            out.flush();
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Stopped OCR worker process {} after {} jobs", pid, jobs);
+    }
+
+    private void watch(long startedNanos) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        if (elapsedMs > jobTimeoutMs) {
+            kill("job exceeded " + jobTimeoutMs + " ms");
+            return;
+        }
+        if (maxRssBytes > 0) {
+            long rss = OcrWorkerProtocol.residentBytes(pid);
+            if (rss > maxRssBytes) {
+                kill("resident memory " + (rss >> 20) + " MB over the " + (maxRssBytes >> 20) + " MB cap");
+            }
+        }
+    }
+
+    private void kill(String reason) {
+        if (killReason == null && process.isAlive()) {
+            killReason = reason;
+            logger.warn("Killing OCR worker process {}: {}", pid, reason);
+            process.destroyForcibly();
+        }
+    }
+
+    private static BufferedImage toGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return gray;
+    }
+}
@@ -0,0 +1,47 @@
+package com.passport.screening.service;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Wire format between TesseractEnginePool and its OCR worker processes (stdin/stdout).
+ * Worker hello: utf HELLO, long pid.
+ * Parent request: u8 op; RECOGNIZE continues with u32 dpi, u32 page seg mode,
+ * utf whitelist, u32 width, u32 height, width*height gray bytes.
+ * Worker response: u8 status; OK continues with (RECOGNIZE only) u32 length +
+ * UTF-8 text, u32 mean confidence, then always u64 RSS bytes; ERROR with utf message.
+ */
+final class OcrWorkerProtocol {
+
+    static final String HELLO = "OCR-WORKER-1";
+
+    static final int OP_RECOGNIZE = 1;
+    static final int OP_PING = 2;
+    static final int OP_SHUTDOWN = 3;
+
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+
+    private OcrWorkerProtocol() {
+    }
+
+    /**
+     * Resident set size from /proc/&lt;pid&gt;/status ("self" for the current process)
+     * @return bytes, or -1 where /proc is not available
+     */
+    static long residentBytes(String pid) {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/" + pid + "/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    String[] parts = line.trim().split("\\s+");
+                    return Long.parseLong(parts[1]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process is gone
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,117 @@
+package com.passport.screening.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * US Treasury OFAC Specially Designated Nationals list, sdn.csv format:
+ * ent_num, SDN_Name, SDN_Type, Program, ... with "-0-" for empty fields.
+ * Only individuals are taken; "LAST, First" names are stored as "First LAST"
+ * to line up with the UN list.
+ */
+@Component
+public class OfacSdnSanctionsSource extends HttpSanctionsSource {
+
+    private static final int NAME_COLUMN = 1;
+    private static final int TYPE_COLUMN = 2;
+
+    // Empty = disabled; e.g. https://www.treasury.gov/ofac/downloads/sdn.csv
+    @Value("${app.sanctions.ofac.url:}")
+    private String url;
+
+    @Override
+    public String getName() {
+        return "OFAC";
+    }
+
+    @Override
+    protected String getUrl() {
+        return url;
+    }
+
+    @Override
+    protected String getAccept() {
+        return "text/csv,text/plain;q=0.9,*/*;q=0.8";
+    }
+
+    @Override
+    public int parse(Fetched fetched, Consumer<String> names) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fetched.file), fetched.charset))) {
+            return parseCsv(reader, names);
+        }
+    }
+
+    static int parseCsv(Reader reader, Consumer<String> names) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int records = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"'); // escaped quote
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (field.length() > 0 || !fields.isEmpty()) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    if (record(fields, names)) {
+                        records++;
+                    }
+                    fields.clear();
+                }
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (field.length() > 0 || !fields.isEmpty()) {
+            fields.add(field.toString());
+            if (record(fields, names)) {
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return true when the row was an individual
+     */
+    private static boolean record(List<String> fields, Consumer<String> names) {
+        if (fields.size() <= TYPE_COLUMN || !"individual".equalsIgnoreCase(fields.get(TYPE_COLUMN).trim())) {
+            return false;
+        }
+        String sdnName = fields.get(NAME_COLUMN).trim();
+        int comma = sdnName.indexOf(',');
+        String name = comma < 0
+            ? sdnName
+            : (sdnName.substring(comma + 1).trim() + " " + sdnName.substring(0, comma).trim()).trim();
+        name = name.replaceAll("\\s+", " ");
+        if (name.length() >= 2 && !name.equals("-0-")) {
+            names.accept(name);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,205 @@
+package com.passport.screening.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * In-place page cleanup before OCR.
+ * Works directly on the backing byte array of an 8-bit gray image (as
+ * rendered by PDFBox with ImageType.GRAY): local-mean (Bradley) binarization
+ * and document-bounds detection happen in the same sweep, the crop is a view
+ * on the same array, and only a detected skew allocates a new image.
+ * Scratch buffers are per thread and reused between pages.
+ */
+public final class PagePreprocessor {
+
+    // Pixel is ink when darker than (1 - K) x its tile mean
+    private static final double BRADLEY_K = 0.15;
+    private static final double MIN_SKEW_DEGREES = 0.3;
+    private static final double MAX_SKEW_DEGREES = 5.0;
+    private static final double SKEW_STEP_DEGREES = 0.25;
+    // Ink pixels are sampled on a 4x4 grid for skew estimation
+    private static final int SAMPLE_STEP = 4;
+    private static final int MAX_SKEW_SAMPLES = 200_000;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private PagePreprocessor() {
+    }
+
+    /**
+     * @param image page image; 8-bit gray is processed in place, anything else is converted first
+     * @param dpi resolution the page was rendered at (scales tile size and margins)
+     * @return binarized page cropped to the document bounds (and deskewed if needed)
+     */
+    public static BufferedImage preprocess(BufferedImage image, int dpi) {
+        BufferedImage gray = toPlainGray(image);
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] data = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        Buffers buffers = BUFFERS.get();
+
+        int tile = Math.max(16, dpi / 10);
+        int tilesX = (width + tile - 1) / tile;
+        int tilesY = (height + tile - 1) / tile;
+        int[] thresholds = buffers.tiles(tilesX * tilesY);
+
+        // Tile means -> local thresholds
+        for (int ty = 0; ty < tilesY; ty++) {
+            int y0 = ty * tile;
+            int y1 = Math.min(height, y0 + tile);
+            for (int tx = 0; tx < tilesX; tx++) {
+                int x0 = tx * tile;
+                int x1 = Math.min(width, x0 + tile);
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    int offset = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        sum += data[offset + x] & 0xFF;
+                    }
+                }
+                long mean = sum / ((long) (y1 - y0) * (x1 - x0));
+                thresholds[ty * tilesX + tx] = (int) (mean * (1 - BRADLEY_K));
+            }
+        }
+
+        // Binarize in place, tracking ink bounds and sampling ink for skew detection
+        int[] samples = buffers.samples(MAX_SKEW_SAMPLES * 2);
+        int sampleCount = 0;
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            int tileRow = (y / tile) * tilesX;
+            boolean sampleRow = y % SAMPLE_STEP == 0;
+            for (int tx = 0; tx < tilesX; tx++) {
+                int threshold = thresholds[tileRow + tx];
+                int x1 = Math.min(width, (tx + 1) * tile);
+                for (int x = tx * tile; x < x1; x++) {
+                    if ((data[offset + x] & 0xFF) < threshold) {
+                        data[offset + x] = 0;
+                        if (x < minX) minX = x;
+                        if (x > maxX) maxX = x;
+                        if (y < minY) minY = y;
+                        maxY = y;
+                        if (sampleRow && x % SAMPLE_STEP == 0 && sampleCount < MAX_SKEW_SAMPLES) {
+                            samples[sampleCount * 2] = x;
+                            samples[sampleCount * 2 + 1] = y;
+                            sampleCount++;
+                        }
+                    } else {
+                        data[offset + x] = (byte) 0xFF;
+                    }
+                }
+            }
+        }
+        if (maxX < 0) {
+            return gray; // blank page
+        }
+
+        int margin = Math.max(4, dpi / 20);
+        int cropX = Math.max(0, minX - margin);
+        int cropY = Math.max(0, minY - margin);
+        int cropWidth = Math.min(width, maxX + margin + 1) - cropX;
+        int cropHeight = Math.min(height, maxY + margin + 1) - cropY;
+        BufferedImage cropped = gray.getSubimage(cropX, cropY, cropWidth, cropHeight);
+
+        double skew = estimateSkewDegrees(samples, sampleCount, width, height, buffers);
+        if (Math.abs(skew) < MIN_SKEW_DEGREES) {
+            return cropped;
+        }
+        return rotate(cropped, -Math.toRadians(skew));
+    }
+
+    /**
+     * Projection-profile skew estimate: the angle at which sampled ink
+     * collapses into the sharpest set of text rows.
+     */
+    private static double estimateSkewDegrees(int[] samples, int count, int width, int height, Buffers buffers) {
+        if (count < 100) {
+            return 0;
+        }
+        int maxShift = (int) Math.ceil(width * Math.tan(Math.toRadians(MAX_SKEW_DEGREES)));
+        int bins = (height + 2 * maxShift) / SAMPLE_STEP + 2;
+        int[] histogram = buffers.histogram(bins);
+
+        double bestAngle = 0;
+        long bestScore = -1;
+        for (double angle = -MAX_SKEW_DEGREES; angle <= MAX_SKEW_DEGREES + 1e-9; angle += SKEW_STEP_DEGREES) {
+            double slope = Math.tan(Math.toRadians(angle));
+            Arrays.fill(histogram, 0, bins, 0);
+            for (int i = 0; i < count; i++) {
+                int x = samples[i * 2];
+                int y = samples[i * 2 + 1];
+                int projected = (int) (y - x * slope) + maxShift;
+                histogram[projected / SAMPLE_STEP]++;
+            }
+            long score = 0;
+            for (int b = 0; b < bins; b++) {
+                score += (long) histogram[b] * histogram[b];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestAngle = angle;
+            }
+        }
+        return bestAngle;
+    }
+
+    private static BufferedImage rotate(BufferedImage image, double radians) {
+        BufferedImage rotated = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = rotated.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, rotated.getWidth(), rotated.getHeight());
+        g.setTransform(AffineTransform.getRotateInstance(radians, image.getWidth() / 2.0, image.getHeight() / 2.0));
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return rotated;
+    }
+
+    /**
+     * Returns an 8-bit gray image whose backing array starts at pixel (0,0)
+     * with no row padding; converts (one copy) only when that is not already the case.
+     */
+    private static BufferedImage toPlainGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            WritableRaster raster = image.getRaster();
+            if (raster.getParent() == null && raster.getDataBuffer().getSize() == image.getWidth() * image.getHeight()) {
+                return image;
+            }
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return gray;
+    }
+
+    private static final class Buffers {
+        private int[] tiles = new int[0];
+        private int[] samples = new int[0];
+        private int[] histogram = new int[0];
+
+        int[] tiles(int size) {
+            if (tiles.length < size) tiles = new int[size];
+            return tiles;
+        }
+
+        int[] samples(int size) {
+            if (samples.length < size) samples = new int[size];
+            return samples;
+        }
+
+        int[] histogram(int size) {
+            if (histogram.length < size) histogram = new int[size];
+            return histogram;
+        }
+    }
+}
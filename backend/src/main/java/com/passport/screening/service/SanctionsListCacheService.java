@@ -1,54 +1,109 @@
 package com.passport.screening.service;
 
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.RenameCollectionOptions;
 import com.passport.screening.model.SanctionedIndividual;
 import com.passport.screening.model.CacheMetadata;
 import com.passport.screening.repository.SanctionedIndividualRepository;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class SanctionsListCacheService {
     private static final Logger logger = LoggerFactory.getLogger(SanctionsListCacheService.class);
-    
-    // This pattern handles whitespace and "na" values correctly
-    private static final Pattern NAME_PATTERN = Pattern.compile(
-        "Name:\\s*1:\\s*([^2]+?)\\s+2:\\s*([^3]+?)(?:\\s+3:\\s*([^4]+?))?(?:\\s+4:\\s*(.+?))?(?=Name:|$)",
-        Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-    );
-    
-    @Value("${app.sanctions.source-url}")
-    private String sanctionsSourceUrl;
+
+    private static final String LIVE_COLLECTION = "sanctioned_individuals";
+    private static final String STAGING_PREFIX = LIVE_COLLECTION + "_staging_";
+    // Queue marker telling a write task that parsing is over
+    private static final List<SanctionedIndividual> END_OF_LIST = Collections.emptyList();
     
     @Value("${app.sanctions.cache-valid-hours:24}")
     private int cacheValidHours;
     
+    // Names per unordered bulk insert into the staging collection
+    @Value("${app.sanctions.write-batch-size:1000}")
+    private int writeBatchSize;
+    
+    // Full batches waiting for a write task; parsing blocks beyond this
+    @Value("${app.sanctions.write-queue-batches:4}")
+    private int writeQueueBatches;
+    
+    @Value("${app.sanctions.write-threads:2}")
+    private int writeThreads;
+    
+    // Rejected records tolerated before a new list version is discarded
+    @Value("${app.sanctions.write-max-failures:100}")
+    private long writeMaxFailures;
+    
     private final SanctionedIndividualRepository repository;
     private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncTaskExecutor writeExecutor;
+    private final AsyncTaskExecutor sourceExecutor;
+    private final List<SanctionsSource> sources;
+    private final SanctionsRefreshLease lease;
+    private final ScreeningHistoryService historyService;
 
-    public SanctionsListCacheService(SanctionedIndividualRepository repository, MongoTemplate mongoTemplate) {
+    public SanctionsListCacheService(SanctionedIndividualRepository repository, MongoTemplate mongoTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Qualifier("sanctionsWriteExecutor") AsyncTaskExecutor writeExecutor,
+                                     @Qualifier("sanctionsSourceExecutor") AsyncTaskExecutor sourceExecutor,
+                                     List<SanctionsSource> sources,
+                                     SanctionsRefreshLease lease,
+                                     ScreeningHistoryService historyService) {
         this.repository = repository;
         this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.writeExecutor = writeExecutor;
+        this.sourceExecutor = sourceExecutor;
+        this.sources = sources;
+        this.lease = lease;
+        this.historyService = historyService;
     }
 
     public void initializeSanctionsList() {
@@ -64,10 +119,7 @@ public class SanctionsListCacheService {
     }
 
     private boolean isCacheValid() {
-        CacheMetadata metadata = mongoTemplate.findOne(
-            Query.query(Criteria.where("id").is("sanctions_cache")),
-            CacheMetadata.class
-        );
+        CacheMetadata metadata = findMetadata();
         
         if (metadata == null) {
             logger.info("No cache metadata found");
@@ -89,151 +141,612 @@ public class SanctionsListCacheService {
         return isValid;
     }
 
+    /**
+     * Conditional refresh of all enabled sources, fetched in parallel. When
+     * none of them changed (304 or same content hash) nothing is parsed or
+     * written, so this can run far more often than the lists change.
+     * Otherwise a new version is built from the changed sources plus the
+     * stored entries of the unchanged ones, replaces the live collection,
+     * and the difference is published as a SanctionsListUpdatedEvent.
+     * Runs on one node of the cluster at a time (SanctionsRefreshLease); the
+     * others skip it and reload the published version.
+     */
     @Scheduled(cron = "${app.sanctions.cache-refresh-cron}")
-    public void refreshSanctionsList() {
+    public synchronized void refreshSanctionsList() {
         logger.info("Starting scheduled sanctions list cache refresh at {}", LocalDateTime.now());
-        
+
+        Long token = lease.tryAcquire();
+        if (token == null) {
+            logger.info("Another node is refreshing the sanctions list - skipping");
+            return;
+        }
         try {
-            List<SanctionedIndividual> individuals = downloadAndParseHtml();
-            
-            if (!individuals.isEmpty()) {
-                updateCache(individuals);
-                logger.info("Successfully updated cache with {} records", individuals.size());
-            } else {
-                logger.warn("No records found in downloaded sanctions list");
-            }
-        } catch (IOException e) {
-            logger.error("Failed to refresh sanctions list", e);
+            refreshAsLeaseHolder(token);
+        } finally {
+            lease.release(token);
         }
     }
 
-    private List<SanctionedIndividual> downloadAndParseHtml() throws IOException {
-        logger.info("Downloading sanctions list from {}", sanctionsSourceUrl);
-        
-        String htmlContent = downloadHtmlContent(sanctionsSourceUrl);
-        logger.info("HTML content length: {}", htmlContent.length());
-        
-        Document doc = Jsoup.parse(htmlContent);
-        String textContent = doc.body().text();
-        logger.info("Parsed text content length: {}", textContent.length());
-        
-        List<SanctionedIndividual> individuals = new ArrayList<>();
-        Set<String> processedNames = new HashSet<>();
+    private void refreshAsLeaseHolder(long token) {
+        try {
+            completePendingSwap();
+        } catch (RuntimeException e) {
+            logger.error("Could not complete the pending sanctions list swap", e);
+            return;
+        }
+        CacheMetadata previous = findMetadata();
+        try {
+            historyService.discardUnpublished(previous != null && previous.getPendingRescreens() != null
+                ? previous.getPendingRescreens() : Collections.<String>emptyList());
+        } catch (RuntimeException e) {
+            logger.warn("Could not clean up re-screening data of unpublished list versions: {}", e.getMessage());
+        }
+        // Validators only count while the data they describe is still there
+        boolean haveList = previous != null && repository.count() > 0;
+        Map<String, CacheMetadata.SourceState> previousStates = haveList && previous.getSources() != null
+            ? previous.getSources() : new HashMap<String, CacheMetadata.SourceState>();
+        Map<SanctionsSource, SanctionsSource.Fetched> changed = new LinkedHashMap<>();
+        // Sources whose stored entries are kept; value is null on 304 / fetch failure
+        Map<String, SanctionsSource.Fetched> unchanged = new LinkedHashMap<>();
+        try {
+            dropLeftoverStaging();
+            fetchAll(previousStates, changed, unchanged);
+
+            boolean sourceDropped = false;
+            for (String name : previousStates.keySet()) {
+                sourceDropped |= !unchanged.containsKey(name) && !isFetched(changed, name);
+            }
+            if (changed.isEmpty() && !sourceDropped) {
+                if (unchanged.isEmpty()) {
+                    logger.error("No sanctions source could be fetched");
+                } else {
+                    logger.info("Sanctions sources {} unchanged since the last refresh - nothing to do", unchanged.keySet());
+                    markChecked(unchanged);
+                }
+                return;
+            }
+            if (!lease.renew(token)) {
+                throw new IOException("Lost the sanctions refresh lease while fetching");
+            }
+            applyNewVersion(changed, unchanged, previousStates, haveList, token);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to refresh sanctions list", e);
+        } finally {
+            for (SanctionsSource.Fetched fetched : changed.values()) {
+                fetched.release();
+            }
+            for (SanctionsSource.Fetched fetched : unchanged.values()) {
+                if (fetched != null) {
+                    fetched.release();
+                }
+            }
+        }
+    }
 
-        Matcher matcher = NAME_PATTERN.matcher(textContent);
-        int matchCount = 0;
+    private CacheMetadata findMetadata() {
+        return mongoTemplate.findOne(Query.query(Criteria.where("id").is("sanctions_cache")), CacheMetadata.class);
+    }
 
-        while (matcher.find()) {
+    /**
+     * Fetches every enabled source in parallel and sorts the results into
+     * changed and unchanged. A source that fails keeps its stored entries.
+     */
+    private void fetchAll(Map<String, CacheMetadata.SourceState> previousStates,
+                          Map<SanctionsSource, SanctionsSource.Fetched> changed,
+                          Map<String, SanctionsSource.Fetched> unchanged) {
+        Map<SanctionsSource, Future<SanctionsSource.Fetched>> fetches = new LinkedHashMap<>();
+        for (SanctionsSource source : sources) {
+            if (source.isEnabled()) {
+                CacheMetadata.SourceState state = previousStates.get(source.getName());
+                fetches.put(source, sourceExecutor.submit(() -> source.fetch(state)));
+            }
+        }
+        for (Map.Entry<SanctionsSource, Future<SanctionsSource.Fetched>> fetch : fetches.entrySet()) {
+            String name = fetch.getKey().getName();
+            CacheMetadata.SourceState state = previousStates.get(name);
             try {
-                String part1 = matcher.group(1).trim().replaceAll("\\s+", " ");
-                String part2 = matcher.group(2).trim().replaceAll("\\s+", " ");
-                String part3 = matcher.group(3) != null ? matcher.group(3).trim().replaceAll("\\s+", " ") : "";
-                String part4 = matcher.group(4) != null ? matcher.group(4).trim().replaceAll("\\s+", " ").split("Name:")[0] : "";
+                SanctionsSource.Fetched fetched = fetch.getValue().get();
+                if (fetched == null) {
+                    logger.info("{} sanctions list not modified", name);
+                    unchanged.put(name, null);
+                } else if (state != null && fetched.contentHash.equals(state.getContentHash())) {
+                    logger.info("{} sanctions list content unchanged (hash {})", name, fetched.contentHash);
+                    unchanged.put(name, fetched);
+                } else {
+                    changed.put(fetch.getKey(), fetched);
+                }
+            } catch (ExecutionException e) {
+                if (state != null) {
+                    logger.warn("Fetching the {} sanctions list failed, keeping the stored entries: {}",
+                        name, e.getCause().getMessage());
+                    unchanged.put(name, null);
+                } else {
+                    logger.error("Fetching the {} sanctions list failed", name, e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
-                StringBuilder fullName = new StringBuilder();
-                if (!part1.isEmpty() && !part1.equalsIgnoreCase("na")) fullName.append(part1).append(" ");
-                if (!part2.isEmpty() && !part2.equalsIgnoreCase("na")) fullName.append(part2).append(" ");
-                if (!part3.isEmpty() && !part3.equalsIgnoreCase("na")) fullName.append(part3).append(" ");
-                if (!part4.isEmpty() && !part4.equalsIgnoreCase("na")) fullName.append(part4);
+    private static boolean isFetched(Map<SanctionsSource, SanctionsSource.Fetched> fetched, String name) {
+        for (SanctionsSource source : fetched.keySet()) {
+            if (source.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                String name = fullName.toString().trim();
+    /**
+     * Blue/green swap: the changed sources are parsed in parallel into a
+     * staging collection, the stored entries of unchanged sources are copied
+     * over on the server, and the result is indexed and count-checked,
+     * diffed against the live collection and renamed over it in one atomic
+     * step. Screenings keep reading the complete old list until that rename.
+     */
+    private void applyNewVersion(Map<SanctionsSource, SanctionsSource.Fetched> changed,
+                                 Map<String, SanctionsSource.Fetched> unchanged,
+                                 Map<String, CacheMetadata.SourceState> previousStates,
+                                 boolean haveList,
+                                 long token) throws IOException {
+        String version = "SANCTIONS_" + System.currentTimeMillis();
+        String staging = STAGING_PREFIX + version;
+        ListWriter writer = new ListWriter(version, staging);
+        // Metadata written: from here on staging is rolled forward, never dropped
+        boolean published = false;
+        try {
+            long start = System.currentTimeMillis();
+            Map<SanctionsSource, Future<Long>> parses = new LinkedHashMap<>();
+            for (Map.Entry<SanctionsSource, SanctionsSource.Fetched> entry : changed.entrySet()) {
+                SanctionsSource source = entry.getKey();
+                ListWriter.SourceWriter sourceWriter = writer.forSource(source.getName());
+                parses.put(source, sourceExecutor.submit(() -> {
+                    int records = source.parse(entry.getValue(), sourceWriter);
+                    sourceWriter.flush();
+                    logger.info("Parsed {} records of the {} list ({} names, {} duplicates)",
+                        records, source.getName(), sourceWriter.seen.size(), sourceWriter.duplicates);
+                    return (long) sourceWriter.seen.size();
+                }));
+            }
 
-                // Skip empty names and duplicates
-                if (name.isEmpty() || name.length() < 2 || processedNames.contains(name)) {
-                    continue;
+            Set<String> carried = new HashSet<>(unchanged.keySet());
+            for (Map.Entry<SanctionsSource, Future<Long>> parse : parses.entrySet()) {
+                String name = parse.getKey().getName();
+                try {
+                    if (parse.getValue().get() == 0 && previousStates.containsKey(name)) {
+                        // Most likely a changed page layout - keep what we have for this source
+                        logger.warn("No records found in the {} sanctions list - keeping the stored entries", name);
+                        carried.add(name);
+                    }
+                } catch (ExecutionException e) {
+                    throw new IOException("Parsing the " + name + " sanctions list failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while parsing sanctions lists", e);
                 }
+            }
+            writer.finish();
+            long saved = writer.saved.get();
+            long copied = copyFromLive(carried, staging);
+            logger.info("Staged {} new and {} kept records into {} in {} ms",
+                saved, copied, staging, System.currentTimeMillis() - start);
 
-                processedNames.add(name);
-                
-                SanctionedIndividual individual = new SanctionedIndividual();
-                individual.setName(name);
-                individual.setCreatedDate(LocalDateTime.now());
+            if (saved + copied == 0) {
+                logger.warn("No records found in any sanctions source");
+                return;
+            }
 
-                individuals.add(individual);
-                matchCount++;
-                
-                logger.debug("Parsed individual name: {}", name);
-                
-                if (matchCount % 100 == 0) {
-                    logger.info("Progress: {} names parsed so far", matchCount);
+            mongoTemplate.indexOps(staging).ensureIndex(new Index().on("name", Sort.Direction.ASC));
+            mongoTemplate.indexOps(staging).ensureIndex(new Index().on("source", Sort.Direction.ASC));
+            long staged = mongoTemplate.getCollection(staging).countDocuments();
+            if (staged != saved + copied) {
+                throw new IOException("Staging collection " + staging + " holds " + staged
+                    + " records, expected " + (saved + copied));
+            }
+
+            List<SanctionedIndividual> added = entriesMissingFrom(staging, LIVE_COLLECTION);
+            List<SanctionedIndividual> removed = haveList
+                ? entriesMissingFrom(LIVE_COLLECTION, staging) : new ArrayList<SanctionedIndividual>();
+            if (haveList && added.isEmpty() && removed.isEmpty()) {
+                logger.info("Sanctions list content changed but entries did not - keeping the live collection");
+                Map<String, SanctionsSource.Fetched> checked = new LinkedHashMap<>(unchanged);
+                for (Map.Entry<SanctionsSource, SanctionsSource.Fetched> entry : changed.entrySet()) {
+                    checked.put(entry.getKey().getName(), entry.getValue());
                 }
-            } catch (Exception e) {
-                logger.warn("Error parsing match at position {}: {}", matcher.start(), e.getMessage());
+                markChecked(checked);
+                return;
             }
-        }
 
-        logger.info("Total individuals parsed: {} (from {} regex matches)", individuals.size(), matchCount);
-        return individuals;
-    }
+            if (!lease.renew(token)) {
+                throw new IOException("Lost the sanctions refresh lease - discarding " + version);
+            }
 
-    private String downloadHtmlContent(String urlString) throws IOException {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        
-        try {
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(30000);
-            connection.setReadTimeout(30000);
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
-            connection.setRequestProperty("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
-            connection.setRequestProperty("Accept-Language", "en-US,en;q=0.5");
-            
-            int responseCode = connection.getResponseCode();
-            logger.info("HTTP Response Code: {}", responseCode);
-            
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                throw new IOException("Failed to download sanctions list. HTTP Response Code: " + responseCode);
-            }
-            
-            InputStream inputStream = connection.getInputStream();
-            StringBuilder htmlContent = new StringBuilder();
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                htmlContent.append(new String(buffer, 0, bytesRead, StandardCharsets.UTF_8));
-            }
-            
-            inputStream.close();
-            logger.info("Successfully downloaded {} characters from sanctions source", htmlContent.length());
-            
-            return htmlContent.toString();
+            Map<String, CacheMetadata.SourceState> states = new HashMap<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (String name : carried) {
+                CacheMetadata.SourceState state = previousStates.get(name);
+                SanctionsSource.Fetched fetched = unchanged.get(name);
+                if (state != null && fetched != null) {
+                    state.setEtag(fetched.etag);
+                    state.setLastModified(fetched.lastModified);
+                }
+                if (state != null) {
+                    states.put(name, state);
+                }
+            }
+            for (Map.Entry<SanctionsSource, SanctionsSource.Fetched> entry : changed.entrySet()) {
+                String name = entry.getKey().getName();
+                if (!carried.contains(name)) {
+                    SanctionsSource.Fetched fetched = entry.getValue();
+                    long records = mongoTemplate.count(Query.query(Criteria.where("source").is(name)), staging);
+                    states.put(name, new CacheMetadata.SourceState(
+                        fetched.etag, fetched.lastModified, fetched.contentHash, records, now));
+                }
+            }
+            // The replace must keep versions still waiting for their re-screening
+            CacheMetadata current = findMetadata();
+            List<String> pendingRescreens = current != null && current.getPendingRescreens() != null
+                ? new ArrayList<>(current.getPendingRescreens()) : new ArrayList<String>();
+            if (historyService.stageRescreen(version, added)) {
+                pendingRescreens.add(version);
+            }
+            CacheMetadata metadata = new CacheMetadata("sanctions_cache", now, staged, version, states, token, staging,
+                pendingRescreens);
+            publishMetadata(metadata, token);
+            published = true;
+            swapIn(staging);
+            // Readers ignore a version while its swap is pending
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is("sanctions_cache").and("pendingSwap").is(staging)),
+                new Update().unset("pendingSwap"), CacheMetadata.class);
+
+            logger.info("Sanctions list switched to {} - {} added, {} removed, {} total from {}",
+                version, added.size(), removed.size(), staged, states.keySet());
+            eventPublisher.publishEvent(new SanctionsListUpdatedEvent(version, added, removed, staged));
         } finally {
-            connection.disconnect();
+            writer.abort();
+            // Still there unless the swap happened
+            if (!published && mongoTemplate.collectionExists(staging)) {
+                mongoTemplate.dropCollection(staging);
+            }
         }
     }
 
-    private void updateCache(List<SanctionedIndividual> individuals) {
+    /**
+     * Fencing: writes the new version's metadata only if no refresh under a
+     * newer lease (higher token) has published since. Runs before the
+     * collection swap, so a holder that stalled after losing its lease
+     * fails here instead of replacing a newer list.
+     */
+    private void publishMetadata(CacheMetadata metadata, long token) throws IOException {
+        Query fenced = Query.query(Criteria.where("id").is("sanctions_cache").orOperator(
+            Criteria.where("leaseToken").lte(token), Criteria.where("leaseToken").exists(false)));
         try {
-            // Clear old records
-            List<SanctionedIndividual> existingRecords = repository.findAll();
-            if (!existingRecords.isEmpty()) {
-                repository.deleteAll(existingRecords);
-                logger.info("Cleared {} old records", existingRecords.size());
+            mongoTemplate.findAndReplace(fenced, metadata, FindAndReplaceOptions.options().upsert());
+        } catch (DuplicateKeyException e) {
+            // The metadata document exists but carries a newer token
+            throw new IOException("A refresh with a newer lease already published - discarding "
+                + metadata.getSourceVersion());
+        }
+    }
+
+    /**
+     * Renames the staging collection over the live one, dropping the previous version in the same step
+     */
+    private void swapIn(String staging) {
+        mongoTemplate.getCollection(staging).renameCollection(
+            new MongoNamespace(mongoTemplate.getDb().getName(), LIVE_COLLECTION),
+            new RenameCollectionOptions().dropTarget(true));
+    }
+
+    /**
+     * Finishes the swap of a refresh that died between publishing its
+     * metadata and renaming its staging collection
+     */
+    private void completePendingSwap() {
+        CacheMetadata metadata = findMetadata();
+        String pending = metadata != null ? metadata.getPendingSwap() : null;
+        if (pending == null) {
+            return;
+        }
+        Update update = new Update().unset("pendingSwap");
+        if (mongoTemplate.collectionExists(pending)) {
+            logger.warn("Completing the interrupted swap of {} ({})", metadata.getSourceVersion(), pending);
+            swapIn(pending);
+        } else if (!mongoTemplate.exists(Query.query(Criteria.where("listVersion").is(metadata.getSourceVersion())),
+                LIVE_COLLECTION)) {
+            // Neither staged nor live: the stored validators no longer describe the live list
+            logger.warn("Staging collection {} of {} is gone - forcing a full reload", pending, metadata.getSourceVersion());
+            update.unset("sources");
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is("sanctions_cache").and("pendingSwap").is(pending)),
+            update, CacheMetadata.class);
+    }
+
+    /**
+     * Copies the live entries of the given sources into the staging
+     * collection on the server
+     * @return number of entries copied
+     */
+    private long copyFromLive(Set<String> sourceNames, String staging) {
+        if (sourceNames.isEmpty()) {
+            return 0;
+        }
+        Criteria criteria = Criteria.where("source").in(sourceNames);
+        long count = mongoTemplate.count(Query.query(criteria), LIVE_COLLECTION);
+        if (count > 0) {
+            Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.merge().intoCollection(staging)
+                    .whenDocumentsMatch(MergeOperation.WhenDocumentsMatch.keepExistingDocument())
+                    .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                    .build()
+            ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+            mongoTemplate.aggregate(aggregation, LIVE_COLLECTION, Document.class);
+        }
+        return count;
+    }
+
+    /**
+     * Entries in one collection with no entry of the same name and source in
+     * the other; the lookup runs on the server against the name index and
+     * only the difference is read back.
+     */
+    private List<SanctionedIndividual> entriesMissingFrom(String collection, String other) {
+        AggregationOperation sameSourceMissing = context -> new Document("$match",
+            new Document("$expr", new Document("$not", Collections.singletonList(
+                new Document("$in", Arrays.asList("$source", "$matches.source"))))));
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.lookup(other, "name", "name", "matches"),
+            sameSourceMissing,
+            Aggregation.project("name", "source").andExclude("_id")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(writeBatchSize).build());
+
+        List<SanctionedIndividual> entries = new ArrayList<>();
+        try (CloseableIterator<Document> cursor =
+                 mongoTemplate.aggregateStream(aggregation, collection, Document.class)) {
+            while (cursor.hasNext()) {
+                Document entry = cursor.next();
+                SanctionedIndividual individual = new SanctionedIndividual();
+                individual.setName(entry.getString("name"));
+                individual.setSource(entry.getString("source"));
+                entries.add(individual);
             }
+        }
+        return entries;
+    }
 
-            // Save new records
-            repository.saveAll(individuals);
-            logger.info("Saved {} new sanctioned individuals to MongoDB", individuals.size());
+    /**
+     * Drops staging collections left behind by a refresh that died mid-way
+     */
+    private void dropLeftoverStaging() {
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (name.startsWith(STAGING_PREFIX)) {
+                logger.info("Dropping leftover staging collection {}", name);
+                mongoTemplate.dropCollection(name);
+            }
+        }
+    }
 
-            // Update metadata
-            CacheMetadata metadata = new CacheMetadata(
-                "sanctions_cache",
-                LocalDateTime.now(),
-                (long) individuals.size(),
-                "UN_CONSOLIDATED_" + System.currentTimeMillis()
-            );
-            mongoTemplate.save(metadata);
-            
-            logger.info("Cache metadata updated - Total records in collection: {}", repository.count());
-        } catch (Exception e) {
-            logger.error("Error updating cache in MongoDB", e);
-            throw new RuntimeException("Failed to update sanctions list cache", e);
+    /**
+     * Records that the sources were checked and are unchanged, so the startup
+     * validity check keeps treating the stored list as current.
+     */
+    private void markChecked(Map<String, SanctionsSource.Fetched> checked) {
+        Update update = new Update().set("lastUpdated", LocalDateTime.now());
+        for (Map.Entry<String, SanctionsSource.Fetched> entry : checked.entrySet()) {
+            SanctionsSource.Fetched fetched = entry.getValue();
+            if (fetched != null) {
+                String prefix = "sources." + entry.getKey() + ".";
+                update.set(prefix + "etag", fetched.etag)
+                    .set(prefix + "lastModified", fetched.lastModified)
+                    .set(prefix + "contentHash", fetched.contentHash);
+            }
         }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is("sanctions_cache")), update, CacheMetadata.class);
     }
 
     public void manualRefresh() {
         logger.info("Manual refresh triggered");
         refreshSanctionsList();
     }
+
+    /**
+     * Collects parsed names per source and hands full batches to the write
+     * tasks through a bounded queue, so parsing and bulk inserts overlap
+     * while at most write-queue-batches batches wait in memory.
+     */
+    private final class ListWriter {
+        final String version;
+        final String collection;
+        final BlockingQueue<List<SanctionedIndividual>> queue = new ArrayBlockingQueue<>(writeQueueBatches);
+        final List<Future<?>> tasks = new ArrayList<>();
+        final LocalDateTime createdDate = LocalDateTime.now();
+        // Updated by the write tasks
+        final AtomicLong saved = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong writeNanos = new AtomicLong();
+        volatile boolean aborted;
+        private boolean closed;
+
+        ListWriter(String version, String collection) {
+            this.version = version;
+            this.collection = collection;
+            for (int i = 0; i < writeThreads; i++) {
+                tasks.add(writeExecutor.submit(this::drain));
+            }
+        }
+
+        SourceWriter forSource(String source) {
+            return new SourceWriter(source);
+        }
+
+        /**
+         * Parser callback for one source; duplicates within the source are
+         * dropped by 64-bit name hash. Used by a single parsing thread.
+         */
+        final class SourceWriter implements Consumer<String> {
+            final String source;
+            final Set<Long> seen = new HashSet<>();
+            List<SanctionedIndividual> pending = new ArrayList<>();
+            long duplicates;
+
+            SourceWriter(String source) {
+                this.source = source;
+            }
+
+            @Override
+            public void accept(String name) {
+                if (!seen.add(nameHash(name))) {
+                    duplicates++;
+                    return;
+                }
+                logger.debug("Parsed {} individual name: {}", source, name);
+                pending.add(new SanctionedIndividual(null, name, source, createdDate, version));
+                if (pending.size() >= writeBatchSize) {
+                    flush();
+                }
+            }
+
+            void flush() {
+                if (!pending.isEmpty()) {
+                    enqueue(pending);
+                    pending = new ArrayList<>(writeBatchSize);
+                }
+            }
+        }
+
+        private void enqueue(List<SanctionedIndividual> batch) {
+            try {
+                while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                    if (tasks.stream().allMatch(Future::isDone)) {
+                        throw new IllegalStateException("Sanctions list write tasks stopped");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing sanctions list batch", e);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<SanctionedIndividual> batch = queue.take();
+                    if (batch == END_OF_LIST) {
+                        return;
+                    }
+                    if (!aborted) {
+                        write(batch);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Unordered bulk insert: a rejected record costs only itself, a
+         * failed batch only that batch; the count check before the swap
+         * and write-max-failures decide whether the version is usable.
+         */
+        private void write(List<SanctionedIndividual> batch) {
+            long start = System.nanoTime();
+            try {
+                BulkWriteResult result = mongoTemplate
+                    .bulkOps(BulkOperations.BulkMode.UNORDERED, SanctionedIndividual.class, collection)
+                    .insert(batch)
+                    .execute();
+                saved.addAndGet(result.getInsertedCount());
+            } catch (BulkOperationException e) {
+                saved.addAndGet(e.getResult().getInsertedCount());
+                failed.addAndGet(e.getErrors().size());
+                logger.warn("Sanctions list batch: {} of {} records rejected, first: {}",
+                    e.getErrors().size(), batch.size(), e.getErrors().get(0).getMessage());
+            } catch (DataAccessException e) {
+                failed.addAndGet(batch.size());
+                logger.warn("Sanctions list batch of {} records failed: {}", batch.size(), e.getMessage());
+            }
+            writeNanos.addAndGet(System.nanoTime() - start);
+            batches.incrementAndGet();
+        }
+
+        /**
+         * Waits for the write tasks once all sources were flushed
+         *
+         * @throws IOException when more than write-max-failures records were not written
+         */
+        void finish() throws IOException {
+            close();
+            double writeSeconds = writeNanos.get() / 1_000_000_000.0;
+            logger.info("Wrote {} records to {} in {} unordered batches ({} failed), {} records/s per write task",
+                saved.get(), collection, batches.get(), failed.get(),
+                writeSeconds > 0 ? Math.round(saved.get() / writeSeconds) : saved.get());
+            if (failed.get() > writeMaxFailures) {
+                throw new IOException(failed.get() + " sanctions list records could not be written");
+            }
+        }
+
+        /**
+         * Stops the write tasks without writing what is still queued
+         */
+        void abort() {
+            aborted = true;
+            queue.clear();
+            close();
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    while (!queue.offer(END_OF_LIST, 1, TimeUnit.SECONDS)) {
+                        if (tasks.stream().allMatch(Future::isDone)) {
+                            break;
+                        }
+                    }
+                }
+                for (Future<?> task : tasks) {
+                    try {
+                        task.get();
+                    } catch (ExecutionException e) {
+                        logger.error("Sanctions list write task failed", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // FNV-1a over the UTF-16 chars
+    private static long nameHash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
 }
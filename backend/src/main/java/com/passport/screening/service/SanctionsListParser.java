@@ -0,0 +1,402 @@
+package com.passport.screening.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Single forward pass over the UN consolidated list.
+ * Accepts the HTML rendering ("Name: 1: .. 2: .. 3: .. 4: ..") or the XML
+ * export (INDIVIDUAL / FIRST_NAME..FOURTH_NAME) and hands each individual's
+ * assembled name to the consumer as soon as its record ends. Only the
+ * current record and one small read buffer are held in memory.
+ */
+public final class SanctionsListParser {
+
+    // Enough to get past an XML declaration / doctype to the root element
+    private static final int SNIFF_CHARS = 1024;
+    private static final String XML_ROOT = "CONSOLIDATED_LIST";
+    private static final String[] XML_NAME_PARTS = {"FIRST_NAME", "SECOND_NAME", "THIRD_NAME", "FOURTH_NAME"};
+
+    private SanctionsListParser() {
+    }
+
+    /**
+     * @param reader decoded list content; read to the end but not closed
+     * @param names receives each individual's full name ("na" parts dropped)
+     * @return number of individual records seen (including ones without a usable name)
+     */
+    public static int parse(Reader reader, Consumer<String> names) throws IOException {
+        BufferedReader buffered = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        RecordAssembler records = new RecordAssembler(names);
+        if (isXml(buffered)) {
+            parseXml(buffered, records);
+        } else {
+            parseHtml(buffered, records);
+        }
+        return records.count;
+    }
+
+    private static boolean isXml(BufferedReader reader) throws IOException {
+        reader.mark(SNIFF_CHARS);
+        char[] head = new char[SNIFF_CHARS];
+        int length = 0;
+        int read;
+        while (length < head.length && (read = reader.read(head, length, head.length - length)) != -1) {
+            length += read;
+        }
+        reader.reset();
+        return new String(head, 0, length).contains("<" + XML_ROOT);
+    }
+
+    private static void parseXml(Reader reader, RecordAssembler records) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(reader);
+            // Element depth of the open INDIVIDUAL, or -1 outside one
+            int individualDepth = -1;
+            int depth = 0;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String element = xml.getLocalName();
+                    if (individualDepth < 0) {
+                        if ("INDIVIDUAL".equals(element)) {
+                            individualDepth = depth;
+                            records.start();
+                        }
+                    } else if (depth == individualDepth + 1) {
+                        for (int i = 0; i < XML_NAME_PARTS.length; i++) {
+                            if (XML_NAME_PARTS[i].equals(element)) {
+                                // Consumes the end element as well
+                                records.part(i + 1, xml.getElementText());
+                                depth--;
+                                break;
+                            }
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == individualDepth) {
+                        records.end();
+                        individualDepth = -1;
+                    }
+                    depth--;
+                }
+            }
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sanctions list XML: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Strips markup and entities on the fly and feeds whitespace-separated
+     * words (split after every ':') to the record state machine.
+     */
+    private static void parseHtml(Reader reader, RecordAssembler records) throws IOException {
+        CharSource in = new CharSource(reader);
+        StringBuilder word = new StringBuilder(64);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '<' && skipMarkup(in)) {
+                flush(word, records);
+                continue;
+            }
+            if (c == '&') {
+                c = readEntity(in, word);
+                if (c == -1) {
+                    continue; // not an entity - kept as literal text
+                }
+            }
+            if (Character.isWhitespace(c) || c == '\u00A0') {
+                flush(word, records);
+            } else {
+                word.append((char) c);
+                if (c == ':') {
+                    flush(word, records);
+                }
+            }
+        }
+        flush(word, records);
+        records.finish();
+    }
+
+    private static void flush(StringBuilder word, RecordAssembler records) {
+        if (word.length() > 0) {
+            records.word(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * Skips a tag, comment or declaration whose '<' was just read; script and
+     * style elements are skipped up to their closing tag.
+     *
+     * @return false (nothing consumed) when the '<' does not start markup
+     */
+    private static boolean skipMarkup(CharSource in) throws IOException {
+        int c = in.read();
+        if (c == -1 || !(Character.isLetter(c) || c == '/' || c == '!' || c == '?')) {
+            in.unread(c);
+            return false;
+        }
+        if (c == '?') {
+            skipPast(in, ">");
+            return true;
+        }
+        if (c == '!') {
+            int second = in.read();
+            int third = in.read();
+            if (second == '-' && third == '-') {
+                skipPast(in, "-->");
+                return true;
+            }
+            skipPast(in, ">");
+            return true;
+        }
+        StringBuilder name = new StringBuilder(8);
+        boolean closing = c == '/';
+        if (closing) {
+            c = in.read();
+        }
+        while (c != -1 && Character.isLetterOrDigit(c)) {
+            name.append(Character.toLowerCase((char) c));
+            c = in.read();
+        }
+        // Rest of the tag; '>' inside quoted attribute values does not end it
+        int quote = 0;
+        while (c != -1 && (quote != 0 || c != '>')) {
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            }
+            c = in.read();
+        }
+        String tag = name.toString();
+        if (!closing && (tag.equals("script") || tag.equals("style"))) {
+            skipPast(in, "</" + tag);
+            skipPast(in, ">");
+        }
+        return true;
+    }
+
+    /**
+     * @param terminator lower-case text to skip past (compared case-insensitively)
+     */
+    private static void skipPast(CharSource in, String terminator) throws IOException {
+        StringBuilder tail = new StringBuilder(terminator.length() + 1);
+        int c;
+        while ((c = in.read()) != -1) {
+            tail.append(Character.toLowerCase((char) c));
+            if (tail.length() > terminator.length()) {
+                tail.deleteCharAt(0);
+            }
+            if (tail.length() == terminator.length() && tail.indexOf(terminator) == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decodes the entity after '&'. Returns the decoded character, or -1
+     * after appending the raw text to the current word when it is not one.
+     */
+    private static int readEntity(CharSource in, StringBuilder word) throws IOException {
+        StringBuilder entity = new StringBuilder(8);
+        int c;
+        while ((c = in.read()) != -1 && entity.length() < 10 && (Character.isLetterOrDigit(c) || c == '#')) {
+            entity.append((char) c);
+        }
+        if (c == ';') {
+            int decoded = decodeEntity(entity.toString());
+            if (decoded != -1) {
+                return decoded;
+            }
+        }
+        word.append('&').append(entity);
+        if (c == ';') {
+            word.append(';');
+        } else if (c != -1) {
+            in.unread(c);
+        }
+        return -1;
+    }
+
+    private static int decodeEntity(String entity) {
+        if (entity.startsWith("#x") || entity.startsWith("#X")) {
+            return parseCodePoint(entity.substring(2), 16);
+        }
+        if (entity.startsWith("#")) {
+            return parseCodePoint(entity.substring(1), 10);
+        }
+        switch (entity) {
+            case "amp": return '&';
+            case "lt": return '<';
+            case "gt": return '>';
+            case "quot": return '"';
+            case "apos": return '\'';
+            case "nbsp": return ' ';
+            default: return -1;
+        }
+    }
+
+    private static int parseCodePoint(String digits, int radix) {
+        try {
+            int codePoint = Integer.parseInt(digits, radix);
+            // Names are BMP text; anything else is dropped as a separator
+            return codePoint > 0 && codePoint <= Character.MAX_VALUE ? codePoint : ' ';
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Tracks the "Name: 1: .. 4: .." structure across words. A record ends at
+     * the next "Name:" or at the first other label ("Title:", "Name (original
+     * script):", ...), so the stored name never carries the trailing metadata.
+     */
+    private static final class RecordAssembler {
+        private final Consumer<String> names;
+        private final StringBuilder[] parts = new StringBuilder[5];
+        // -1 outside a record, 0 between "Name:" and "1:", else the current numbered part
+        private int field = -1;
+        private boolean pendingName;
+        int count;
+
+        RecordAssembler(Consumer<String> names) {
+            this.names = names;
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new StringBuilder(32);
+            }
+        }
+
+        void word(String word) {
+            if (pendingName) {
+                pendingName = false;
+                if (word.startsWith("(")) {
+                    end();
+                    return;
+                }
+                append("Name");
+            }
+            if (word.equalsIgnoreCase("Name:")) {
+                end();
+                start();
+                return;
+            }
+            if (field < 0) {
+                return;
+            }
+            if (word.length() == 2 && word.charAt(1) == ':' && word.charAt(0) >= '1' && word.charAt(0) <= '4') {
+                field = word.charAt(0) - '0';
+                return;
+            }
+            if (word.endsWith(":")) {
+                end();
+                return;
+            }
+            if (field == 0) {
+                return;
+            }
+            if (word.equalsIgnoreCase("Name")) {
+                pendingName = true;
+                return;
+            }
+            append(word);
+        }
+
+        void finish() {
+            if (pendingName) {
+                pendingName = false;
+                append("Name");
+            }
+            end();
+        }
+
+        void start() {
+            field = 0;
+            for (StringBuilder part : parts) {
+                part.setLength(0);
+            }
+        }
+
+        void part(int index, String text) {
+            parts[index].setLength(0);
+            parts[index].append(text.trim().replaceAll("\\s+", " "));
+        }
+
+        void end() {
+            if (field < 0) {
+                return;
+            }
+            field = -1;
+            count++;
+            StringBuilder fullName = new StringBuilder();
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].toString();
+                if (!part.isEmpty() && !part.equalsIgnoreCase("na")) {
+                    fullName.append(fullName.length() == 0 ? "" : " ").append(part);
+                }
+            }
+            if (fullName.length() >= 2) {
+                names.accept(fullName.toString());
+            }
+        }
+
+        private void append(String word) {
+            if (field <= 0) {
+                return;
+            }
+            StringBuilder part = parts[field];
+            if (part.length() > 0) {
+                part.append(' ');
+            }
+            part.append(word);
+        }
+    }
+
+    /**
+     * Buffered char reader with a single character of pushback
+     */
+    private static final class CharSource {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private int pushedBack = -1;
+
+        CharSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        int read() throws IOException {
+            if (pushedBack != -1) {
+                int c = pushedBack;
+                pushedBack = -1;
+                return c;
+            }
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+        void unread(int c) {
+            pushedBack = c;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.SanctionedIndividual;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published after a refresh changed the stored sanctions list.
+ * Carries only the delta against the previous version (name and source of
+ * each entry), so listeners can react to new designations without
+ * re-reading the whole list.
+ */
+public class SanctionsListUpdatedEvent {
+    private final String version;
+    private final List<SanctionedIndividual> added;
+    private final List<SanctionedIndividual> removed;
+    private final long totalRecords;
+
+    public SanctionsListUpdatedEvent(String version, List<SanctionedIndividual> added,
+                                     List<SanctionedIndividual> removed, long totalRecords) {
+        this.version = version;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.totalRecords = totalRecords;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<SanctionedIndividual> getAdded() {
+        return added;
+    }
+
+    public List<SanctionedIndividual> getRemoved() {
+        return removed;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+}
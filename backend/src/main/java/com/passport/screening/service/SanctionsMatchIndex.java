@@ -0,0 +1,198 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.CacheMetadata;
+import com.passport.screening.model.SanctionedIndividual;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory copy of the stored sanctions list, prepared for matching
+ * (core name extracted and normalized once per entry instead of once per
+ * screening). Loaded from the persisted collection at startup and rebuilt
+ * after every refresh that changed the list; readers always see one
+ * complete snapshot. Nodes that did not run the refresh themselves notice
+ * the new version by polling cache_metadata.
+ */
+@Component
+public class SanctionsMatchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SanctionsMatchIndex.class);
+
+    // Metadata markers that end the name part of legacy full-text entries
+    private static final String[] CORE_NAME_MARKERS =
+        {" na Name", " Title:", " Designation:", " DOB:", " POB:", " a.k.a.:", " Nationality:", " Passport"};
+
+    private final MongoTemplate mongoTemplate;
+    private volatile List<Entry> entries;
+    // sourceVersion of cache_metadata the entries were loaded for
+    private volatile String version;
+    // A published version (a successful refresh) really has no entries
+    private volatile boolean confirmedEmpty;
+    private volatile boolean ready;
+
+    public SanctionsMatchIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * (Re)builds the index from the live collection
+     * @return number of entries loaded
+     */
+    public synchronized int load() {
+        long start = System.currentTimeMillis();
+        // Read first: a version published during the load is picked up by the next check
+        CacheMetadata published = findPublished();
+        // While a swap is pending the collection may still be the old version
+        boolean settled = published != null && published.getPendingSwap() == null;
+        String loadedVersion = settled ? published.getSourceVersion() : null;
+        Query query = new Query();
+        query.fields().include("name").include("source");
+        List<Entry> loaded = new ArrayList<>();
+        try (CloseableIterator<SanctionedIndividual> cursor = mongoTemplate.stream(query, SanctionedIndividual.class)) {
+            while (cursor.hasNext()) {
+                SanctionedIndividual individual = cursor.next();
+                if (individual.getName() != null) {
+                    Entry entry = new Entry(individual.getName(), individual.getSource());
+                    // Nothing left to compare (e.g. non-Latin only) would match every input
+                    if (!entry.normalizedName.isEmpty()) {
+                        loaded.add(entry);
+                    }
+                }
+            }
+        }
+        entries = Collections.unmodifiableList(loaded);
+        version = loadedVersion;
+        confirmedEmpty = settled && published.getTotalRecords() == 0;
+        logger.info("Sanctions match index loaded {} entries of {} in {} ms",
+            loaded.size(), loadedVersion, System.currentTimeMillis() - start);
+        return loaded.size();
+    }
+
+    @EventListener
+    public void onListUpdated(SanctionsListUpdatedEvent event) {
+        logger.info("Sanctions list changed to {} - reloading match index", event.getVersion());
+        load();
+    }
+
+    /**
+     * Reloads when another node published a new list version
+     */
+    @Scheduled(fixedDelayString = "${app.sanctions.version-check-ms:30000}")
+    public void checkPublishedVersion() {
+        if (!isLoaded()) {
+            return; // startup load still pending
+        }
+        String published = publishedVersion();
+        if (published != null && !published.equals(version)) {
+            logger.info("Sanctions list {} published by another node - reloading match index", published);
+            load();
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return version in cache_metadata, or null while none is (completely) published
+     */
+    private String publishedVersion() {
+        CacheMetadata metadata = findPublished();
+        return metadata != null && metadata.getPendingSwap() == null ? metadata.getSourceVersion() : null;
+    }
+
+    private CacheMetadata findPublished() {
+        Query query = Query.query(Criteria.where("id").is("sanctions_cache"));
+        query.fields().include("sourceVersion").include("totalRecords").include("pendingSwap");
+        return mongoTemplate.findOne(query, CacheMetadata.class);
+    }
+
+    public boolean isLoaded() {
+        return entries != null;
+    }
+
+    /**
+     * @return current snapshot, or null before the first load
+     */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        List<Entry> current = entries;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * A list to screen against is loaded: it has entries, or a successful
+     * refresh published it as empty. An empty collection alone (nothing
+     * downloaded yet, another node still refreshing) does not count.
+     */
+    public boolean hasList() {
+        return size() > 0 || (isLoaded() && confirmedEmpty);
+    }
+
+    /**
+     * Ready = a list is loaded and startup warm-up has finished
+     */
+    public boolean isReady() {
+        return ready && hasList();
+    }
+
+    /**
+     * @return false (and stays not ready) while no list is loaded
+     */
+    public boolean markReady() {
+        if (!hasList()) {
+            return false;
+        }
+        ready = true;
+        return true;
+    }
+
+    static String normalizeName(String name) {
+        return name
+            .toUpperCase()
+            .replaceAll("[^A-Z0-9]", "")
+            .trim();
+    }
+
+    /**
+     * Only the main name, before metadata markers like "na Name", "Title:", "DOB:"
+     */
+    static String extractCoreName(String fullEntry) {
+        if (fullEntry == null || fullEntry.isEmpty()) {
+            return fullEntry;
+        }
+        String result = fullEntry;
+        for (String marker : CORE_NAME_MARKERS) {
+            int index = result.indexOf(marker);
+            if (index > 0) {
+                result = result.substring(0, index);
+            }
+        }
+        return result.trim();
+    }
+
+    public static final class Entry {
+        public final String coreName;
+        public final String normalizedName;
+        public final String source;
+
+        public Entry(String name, String source) {
+            this.coreName = extractCoreName(name);
+            this.normalizedName = normalizeName(coreName);
+            this.source = source;
+        }
+    }
+}
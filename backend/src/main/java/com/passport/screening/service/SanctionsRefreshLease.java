@@ -0,0 +1,137 @@
+package com.passport.screening.service;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cluster-wide lease on the sanctions list refresh, kept in one Mongo
+ * document. Only the holder downloads, parses and writes; the other nodes
+ * skip their scheduled refresh and pick up the published version.
+ *
+ * Expiry is evaluated against the server clock ($$NOW), so a holder that
+ * crashes mid-refresh loses the lease after lease-ttl-seconds regardless of
+ * clock skew between nodes. Every acquisition increments a fencing token;
+ * the holder re-checks it before publishing, so a stalled holder whose
+ * lease was taken over cannot swap in its (older) list afterwards.
+ */
+@Component
+public class SanctionsRefreshLease {
+    private static final Logger logger = LoggerFactory.getLogger(SanctionsRefreshLease.class);
+
+    static final String COLLECTION = "refresh_leases";
+    private static final String LEASE_ID = "sanctions_refresh";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    // Unique per process, also across restarts on the same host
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName()
+        + "/" + UUID.randomUUID().toString().substring(0, 8);
+    private volatile boolean created;
+
+    // Longest a refresh may run without renewing before another node takes over
+    @Value("${app.sanctions.lease-ttl-seconds:900}")
+    private long leaseTtlSeconds;
+
+    public SanctionsRefreshLease(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return fencing token of the acquired lease, or null while another node holds it
+     */
+    public Long tryAcquire() {
+        ensureLeaseDocument();
+        Bson expired = new Document("_id", LEASE_ID)
+            .append("$expr", new Document("$lt", Arrays.asList("$expiresAt", "$$NOW")));
+        List<Bson> update = Collections.<Bson>singletonList(new Document("$set", new Document("owner", owner)
+            .append("acquiredAt", "$$NOW")
+            .append("expiresAt", expiresFromNow())
+            .append("token", new Document("$add", Arrays.asList("$token", 1L)))));
+        Document lease = leases().findOneAndUpdate(expired, update,
+            new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+        if (lease == null) {
+            Document current = leases().find(new Document("_id", LEASE_ID)).first();
+            logger.info("Sanctions refresh lease held by {} until {}",
+                current != null ? current.get("owner") : "?", current != null ? current.get("expiresAt") : "?");
+            return null;
+        }
+        long token = lease.get("token", Number.class).longValue();
+        logger.info("Acquired sanctions refresh lease as {} (token {})", owner, token);
+        return token;
+    }
+
+    /**
+     * Extends the lease by another lease-ttl-seconds
+     * @return false when it expired and another node acquired it since
+     */
+    public boolean renew(long token) {
+        long modified = leases().updateOne(held(token),
+            Collections.<Bson>singletonList(new Document("$set", new Document("expiresAt", expiresFromNow()))))
+            .getMatchedCount();
+        if (modified == 0) {
+            logger.warn("Sanctions refresh lease (token {}) was lost", token);
+        }
+        return modified > 0;
+    }
+
+    /**
+     * Lets the next node acquire the lease right away instead of after its TTL
+     */
+    public void release(long token) {
+        leases().updateOne(held(token),
+            Collections.<Bson>singletonList(new Document("$set", new Document("expiresAt", "$$NOW"))));
+    }
+
+    private Document held(long token) {
+        return new Document("_id", LEASE_ID).append("owner", owner).append("token", token);
+    }
+
+    private Document expiresFromNow() {
+        return new Document("$add", Arrays.asList("$$NOW", leaseTtlSeconds * 1000));
+    }
+
+    /**
+     * The lease document is never deleted (a TTL index would reset the
+     * fencing token), an expired lease is simply taken over
+     */
+    private void ensureLeaseDocument() {
+        if (created) {
+            return;
+        }
+        try {
+            leases().insertOne(new Document("_id", LEASE_ID)
+                .append("owner", null)
+                .append("token", 0L)
+                .append("expiresAt", new Date(0)));
+        } catch (MongoWriteException e) {
+            if (e.getError().getCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+        }
+        created = true;
+    }
+
+    private MongoCollection<Document> leases() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+}
@@ -12,29 +12,50 @@ import java.util.List;
 @Service
 public class SanctionsService {
     private static final Logger logger = LoggerFactory.getLogger(SanctionsService.class);
+    // Number of list entries matched between two deadline checks
+    private static final int MATCH_CHUNK_SIZE = 500;
     private final SanctionedIndividualRepository repository;
     private final SanctionsListCacheService cacheService;
+    private final SanctionsMatchIndex matchIndex;
 
-    public SanctionsService(SanctionedIndividualRepository repository, SanctionsListCacheService cacheService) {
+    public SanctionsService(SanctionedIndividualRepository repository, SanctionsListCacheService cacheService,
+                            SanctionsMatchIndex matchIndex) {
         this.repository = repository;
         this.cacheService = cacheService;
+        this.matchIndex = matchIndex;
     }
 
     public ScreeningCheckResult checkSanctions(String name) {
+        return checkSanctions(name, ScreeningDeadline.none());
+    }
+
+    public ScreeningCheckResult checkSanctions(String name, ScreeningDeadline deadline) {
         if (name == null || name.trim().isEmpty()) {
             return new ScreeningCheckResult(false, new ArrayList<SanctionEntry>());
         }
 
-        String normalizedInput = normalizeName(name);
-        List<SanctionedIndividual> allIndividuals = repository.findAll();
+        String normalizedInput = SanctionsMatchIndex.normalizeName(name);
+        List<SanctionsMatchIndex.Entry> allEntries = matchIndex.entries();
+        if (allEntries == null) {
+            // Index still loading - match against the persisted list directly
+            allEntries = new ArrayList<>();
+            for (SanctionedIndividual individual : repository.findAll()) {
+                allEntries.add(new SanctionsMatchIndex.Entry(individual.getName(), individual.getSource()));
+            }
+        }
         
         List<SanctionEntry> entries = new ArrayList<>();
-        for (SanctionedIndividual individual : allIndividuals) {
-            String coreName = extractCoreNameFromSanctionsEntry(individual.getName());
-            String normalizedDbName = normalizeName(coreName);
-            
-            if (matchesName(normalizedInput, normalizedDbName)) {
-                entries.add(new SanctionEntry(coreName.trim()));
+        int checked = 0;
+        for (SanctionsMatchIndex.Entry entry : allEntries) {
+            if (checked++ % MATCH_CHUNK_SIZE == 0 && deadline.isExpired()) {
+                logger.warn("Sanctions matching stopped after {}/{} entries - deadline expired",
+                    checked - 1, allEntries.size());
+                ScreeningCheckResult partial = new ScreeningCheckResult(!entries.isEmpty(), entries);
+                partial.complete = false;
+                return partial;
+            }
+            if (matchesName(normalizedInput, entry.normalizedName)) {
+                entries.add(new SanctionEntry(entry.coreName, entry.source));
             }
         }
 
@@ -42,27 +63,7 @@ public class SanctionsService {
         return new ScreeningCheckResult(isSanctioned, entries);
     }
 
-    private String extractCoreNameFromSanctionsEntry(String fullEntry) {
-        // Extract only the main name before metadata markers like "na Name", "Title:", "Designation:", "DOB", etc.
-        if (fullEntry == null || fullEntry.isEmpty()) {
-            return fullEntry;
-        }
-        
-        // Split by common metadata markers
-        String[] markers = {" na Name", " Title:", " Designation:", " DOB:", " POB:", " a.k.a.:", " Nationality:", " Passport"};
-        String result = fullEntry;
-        
-        for (String marker : markers) {
-            int index = result.indexOf(marker);
-            if (index > 0) {
-                result = result.substring(0, index);
-            }
-        }
-        
-        return result.trim();
-    }
-
-    private boolean matchesName(String extractedName, String dbName) {
+    static boolean matchesName(String extractedName, String dbName) {
         if (extractedName.equals(dbName)) {
             return true;
         }
@@ -99,15 +100,8 @@ public class SanctionsService {
         return false;
     }
 
-    private String normalizeName(String name) {
-        return name
-            .toUpperCase()
-            .replaceAll("[^A-Z0-9]", "")
-            .trim();
-    }
-
     public long getCacheSize() {
-        return repository.count();
+        return matchIndex.isLoaded() ? matchIndex.size() : repository.count();
     }
 
     public void validateCacheIntegrity() {
@@ -118,6 +112,8 @@ public class SanctionsService {
     public static class ScreeningCheckResult {
         public boolean isSanctioned;
         public List<SanctionEntry> entries;
+        // false when the deadline stopped matching before the whole list was checked
+        public boolean complete = true;
 
         public ScreeningCheckResult(boolean isSanctioned, List<SanctionEntry> entries) {
             this.isSanctioned = isSanctioned;
@@ -127,9 +123,12 @@ public class SanctionsService {
 
     public static class SanctionEntry {
         public String name;
+        // List the entry came from (UN, OFAC, ...)
+        public String source;
 
-        public SanctionEntry(String name) {
+        public SanctionEntry(String name, String source) {
             this.name = name;
+            this.source = source;
         }
     }
 }
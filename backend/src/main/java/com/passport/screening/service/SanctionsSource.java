@@ -0,0 +1,58 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.CacheMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * A sanctions list the cache is built from (UN consolidated, OFAC SDN, local file, ...).
+ * SanctionsListCacheService fetches and parses all enabled sources in parallel
+ * and stores their entries tagged with getName().
+ */
+public interface SanctionsSource {
+    /**
+     * Stable tag stored with each entry and reported with matches
+     */
+    String getName();
+
+    /**
+     * Check if this source is configured
+     */
+    boolean isEnabled();
+
+    /**
+     * Retrieve the current list content
+     * @param previous validators of the version currently stored for this source, or null
+     * @return the content, or null when the source reports it unchanged (e.g. HTTP 304)
+     */
+    Fetched fetch(CacheMetadata.SourceState previous) throws IOException;
+
+    /**
+     * Parse fetched content in one pass, handing each individual's full name to the consumer
+     * @return number of records seen
+     */
+    int parse(Fetched fetched, Consumer<String> names) throws IOException;
+
+    /**
+     * Fetched list content. HTTP sources spool to a temp file (deleted after
+     * the refresh); file sources point at the original.
+     */
+    class Fetched {
+        public File file;
+        public boolean temporary;
+        public Charset charset;
+        public String etag;
+        public String lastModified;
+        // SHA-256 of the content, compared against the stored version
+        public String contentHash;
+
+        public void release() {
+            if (temporary && file != null) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.passport.screening.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the match index as soon as any node publishes a new sanctions
+ * list version, by watching cache_metadata with a change stream. The
+ * resume token of the last event seen is kept, so after a dropped
+ * connection the stream continues where it stopped instead of missing a
+ * version published in between. When the stream is invalidated (the
+ * collection was dropped or renamed) a fresh one is opened and the
+ * published version re-checked, since an invalidate token cannot be resumed.
+ *
+ * Change streams need a replica set (a single-node one is enough, see
+ * scripts/start-mongo-replset.sh). On a standalone server the watcher logs
+ * once and stops; the cache_metadata version poll of SanctionsMatchIndex
+ * keeps working either way.
+ */
+@Component
+public class SanctionsVersionWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(SanctionsVersionWatcher.class);
+
+    private static final String METADATA_COLLECTION = "cache_metadata";
+    // $changeStream on a standalone server
+    private static final int NOT_A_REPLICA_SET = 40573;
+    // Resume token no longer in the oplog
+    private static final int HISTORY_LOST = 286;
+    private static final long MAX_BACKOFF_MS = 60000;
+
+    private final MongoTemplate mongoTemplate;
+    private final SanctionsMatchIndex matchIndex;
+    private volatile BsonDocument resumeToken;
+    private volatile boolean running;
+    private Thread watcher;
+
+    @Value("${app.sanctions.change-stream.enabled:true}")
+    private boolean enabled;
+
+    public SanctionsVersionWatcher(MongoTemplate mongoTemplate, SanctionsMatchIndex matchIndex) {
+        this.mongoTemplate = mongoTemplate;
+        this.matchIndex = matchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || watcher != null) {
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watch, "sanctions-version-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() {
+        long backoffMs = 1000;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openStream().cursor()) {
+                logger.info("Watching {} for new sanctions list versions{}", METADATA_COLLECTION,
+                    resumeToken != null ? " (resumed)" : "");
+                backoffMs = 1000;
+                if (resumeToken == null) {
+                    // Fresh stream: a version published before it opened is not in it
+                    matchIndex.checkPublishedVersion();
+                }
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null && cursor.getServerCursor() == null
+                            || change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                        logger.warn("Change stream on {} was invalidated - reopening", METADATA_COLLECTION);
+                        resumeToken = null;
+                        break;
+                    }
+                    if (change == null) {
+                        // Idle: keep the latest post-batch token so a resume skips nothing
+                        remember(cursor.getResumeToken());
+                        continue;
+                    }
+                    onChange(change.getFullDocument());
+                    remember(change.getResumeToken());
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == NOT_A_REPLICA_SET) {
+                    logger.warn("MongoDB is not a replica set - sanctions list changes are picked up by polling only");
+                    return;
+                }
+                if (e.getErrorCode() == HISTORY_LOST) {
+                    logger.warn("Change stream resume point is gone - re-checking the published version");
+                    resumeToken = null;
+                    matchIndex.checkPublishedVersion();
+                    continue;
+                }
+                backoffMs = reconnectAfter(e, backoffMs);
+            } catch (MongoException | IllegalStateException e) {
+                backoffMs = reconnectAfter(e, backoffMs);
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> openStream() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(METADATA_COLLECTION)
+            .watch(Collections.singletonList(Aggregates.match(Filters.and(
+                Filters.or(
+                    Filters.and(Filters.in("operationType", Arrays.asList("insert", "update", "replace")),
+                        Filters.eq("documentKey._id", "sanctions_cache")),
+                    Filters.eq("operationType", "invalidate"))))))
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .maxAwaitTime(1, TimeUnit.SECONDS);
+        return resumeToken != null ? stream.resumeAfter(resumeToken) : stream;
+    }
+
+    private void onChange(Document metadata) {
+        // A pending swap means the collection is not switched yet; its completion is another update
+        if (metadata == null || !matchIndex.isLoaded() || metadata.get("pendingSwap") != null) {
+            return;
+        }
+        String published = metadata.getString("sourceVersion");
+        if (published != null && !published.equals(matchIndex.getVersion())) {
+            logger.info("Sanctions list {} published - reloading match index", published);
+            matchIndex.load();
+        }
+    }
+
+    private void remember(BsonDocument token) {
+        if (token != null) {
+            resumeToken = token;
+        }
+    }
+
+    private long reconnectAfter(RuntimeException e, long backoffMs) {
+        if (!running) {
+            return backoffMs;
+        }
+        logger.warn("Sanctions change stream interrupted, reconnecting in {} ms: {}", backoffMs, e.getMessage());
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+}
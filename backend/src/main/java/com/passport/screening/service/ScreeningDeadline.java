@@ -0,0 +1,56 @@
+package com.passport.screening.service;
+
+/**
+ * Time budget for a single screening request.
+ * OCR and sanctions matching check it between pages / matcher chunks and stop
+ * early once it has passed or the request was cancelled (client went away).
+ */
+public class ScreeningDeadline {
+
+    private final long expiresAtNanos;
+    private final ScreeningDeadline parent;
+    private volatile boolean cancelled;
+
+    private ScreeningDeadline(long expiresAtNanos, ScreeningDeadline parent) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.parent = parent;
+    }
+
+    public static ScreeningDeadline after(long timeoutMillis) {
+        return new ScreeningDeadline(System.nanoTime() + timeoutMillis * 1_000_000L, null);
+    }
+
+    /**
+     * Deadline that never expires on its own (still cancellable)
+     */
+    public static ScreeningDeadline none() {
+        return new ScreeningDeadline(System.nanoTime() + Long.MAX_VALUE / 2, null);
+    }
+
+    /**
+     * Same expiry, but can be cancelled on its own (e.g. a losing hedged attempt).
+     * Cancelling the parent cancels every child.
+     */
+    public ScreeningDeadline child() {
+        return new ScreeningDeadline(expiresAtNanos, this);
+    }
+
+    public boolean isExpired() {
+        return isCancelled() || System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    public long remainingMillis() {
+        if (isCancelled()) {
+            return 0;
+        }
+        return Math.max(0, (expiresAtNanos - System.nanoTime()) / 1_000_000L);
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+}
@@ -0,0 +1,348 @@
+package com.passport.screening.service;
+
+import com.passport.screening.model.CacheMetadata;
+import com.passport.screening.model.RescreenJob;
+import com.passport.screening.model.SanctionedIndividual;
+import com.passport.screening.model.SanctionsAlert;
+import com.passport.screening.model.ScreenedSubject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the normalized names of past screenings and re-screens them when
+ * the sanctions list grows. Only the entries added by a refresh are
+ * matched, so a re-screening costs history size x delta size instead of
+ * history size x list size; hits are stored as SanctionsAlerts.
+ *
+ * The refresh stages a version's additions in rescreen_entries and lists
+ * the version in cache_metadata.pendingRescreens with the same write that
+ * publishes it, so the work survives a crash of the publishing node. Any
+ * node then claims a pending version (rescreen_jobs) and re-screens it in
+ * the background, resuming after the last finished subject; the version
+ * leaves the pending list only once the whole history is checked.
+ */
+@Service
+public class ScreeningHistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(ScreeningHistoryService.class);
+
+    static final String ENTRIES_COLLECTION = "rescreen_entries";
+    private static final int STAGE_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final AsyncTaskExecutor rescreenExecutor;
+    // Unique per process, also across restarts on the same host
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName()
+        + "/" + UUID.randomUUID().toString().substring(0, 8);
+    // One pending-rescreen run per node at a time
+    private final AtomicBoolean processing = new AtomicBoolean();
+
+    @Value("${app.screening.history.enabled:true}")
+    private boolean enabled;
+
+    // Subjects per parallel re-screening task
+    @Value("${app.screening.history.rescreen-batch-size:1000}")
+    private int rescreenBatchSize;
+
+    // How long a claim on a version holds without progress before another node takes over
+    @Value("${app.screening.history.rescreen-claim-seconds:600}")
+    private long claimSeconds;
+
+    public ScreeningHistoryService(MongoTemplate mongoTemplate,
+                                   @Qualifier("rescreenExecutor") AsyncTaskExecutor rescreenExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.rescreenExecutor = rescreenExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        logger.info("Screening history - enabled: {}, rescreen batch size: {}, rescreen threads: {}, claim: {} s",
+            enabled, rescreenBatchSize, rescreenExecutor instanceof ThreadPoolTaskExecutor
+                ? ((ThreadPoolTaskExecutor) rescreenExecutor).getCorePoolSize() : "?", claimSeconds);
+    }
+
+    /**
+     * Records a screened name; failures are logged and never fail the screening
+     */
+    public void record(String name) {
+        if (!enabled || name == null) {
+            return;
+        }
+        String key = SanctionsMatchIndex.normalizeName(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+            .set("name", name.trim())
+            .set("lastScreened", now)
+            .setOnInsert("firstScreened", now)
+            .inc("screenings", 1);
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("id").is(key)), update, ScreenedSubject.class);
+        } catch (DataAccessException e) {
+            logger.warn("Could not record screening of {} in the history: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the entries a list version adds; called by the refresh before
+     * it publishes the version
+     * @return true when the version has to go into pendingRescreens
+     */
+    public boolean stageRescreen(String version, List<SanctionedIndividual> added) {
+        if (!enabled || added.isEmpty() || mongoTemplate.estimatedCount(ScreenedSubject.class) == 0) {
+            return false;
+        }
+        mongoTemplate.indexOps(ENTRIES_COLLECTION).ensureIndex(new Index().on("listVersion", Sort.Direction.ASC));
+        mongoTemplate.remove(Query.query(Criteria.where("listVersion").is(version)), ENTRIES_COLLECTION);
+        List<SanctionedIndividual> batch = new ArrayList<>(STAGE_BATCH_SIZE);
+        for (SanctionedIndividual individual : added) {
+            batch.add(new SanctionedIndividual(null, individual.getName(), individual.getSource(),
+                individual.getCreatedDate(), version));
+            if (batch.size() == STAGE_BATCH_SIZE) {
+                mongoTemplate.insert(batch, ENTRIES_COLLECTION);
+                batch = new ArrayList<>(STAGE_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, ENTRIES_COLLECTION);
+        }
+        logger.info("Staged {} added entries of {} for re-screening", added.size(), version);
+        return true;
+    }
+
+    /**
+     * Drops what refreshes that failed or were fenced off after staging left
+     * behind, i.e. everything of versions not in pendingRescreens
+     */
+    public void discardUnpublished(Collection<String> pendingVersions) {
+        long entries = mongoTemplate.remove(Query.query(Criteria.where("listVersion").nin(pendingVersions)),
+            ENTRIES_COLLECTION).getDeletedCount();
+        mongoTemplate.remove(Query.query(Criteria.where("id").nin(pendingVersions)), RescreenJob.class);
+        if (entries > 0) {
+            logger.info("Discarded {} staged re-screening entries of unpublished list versions", entries);
+        }
+    }
+
+    /**
+     * Starts the re-screening in the background, the refresh that published
+     * the version does not wait for it
+     */
+    @EventListener
+    public void onListUpdated(SanctionsListUpdatedEvent event) {
+        schedulePending();
+    }
+
+    /**
+     * Also picks up versions a stopped node left pending
+     */
+    @Scheduled(initialDelayString = "${app.screening.history.pending-check-ms:300000}",
+        fixedDelayString = "${app.screening.history.pending-check-ms:300000}")
+    public void schedulePending() {
+        // Claimed before submitting: the pool is idle then, so the run never falls back to the calling thread
+        if (enabled && processing.compareAndSet(false, true)) {
+            rescreenExecutor.execute(this::processPending);
+        }
+    }
+
+    private void processPending() {
+        try {
+            CacheMetadata metadata = mongoTemplate.findOne(
+                Query.query(Criteria.where("id").is("sanctions_cache")), CacheMetadata.class);
+            // Until the swap is completed the version is not published (it may still be rolled back)
+            if (metadata == null || metadata.getPendingSwap() != null || metadata.getPendingRescreens() == null) {
+                return;
+            }
+            for (String version : metadata.getPendingRescreens()) {
+                RescreenJob job = claim(version);
+                if (job != null) {
+                    rescreen(job);
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.error("Re-screening pending list versions failed, will resume: {}", e.getMessage());
+        } finally {
+            processing.set(false);
+        }
+    }
+
+    /**
+     * @return the job with its checkpoint, or null while another node's claim holds
+     */
+    private RescreenJob claim(String version) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = Query.query(Criteria.where("id").is(version).orOperator(
+            Criteria.where("owner").is(owner),
+            Criteria.where("claimedUntil").lt(now),
+            Criteria.where("claimedUntil").exists(false)));
+        Update update = new Update().set("owner", owner).set("claimedUntil", now.plusSeconds(claimSeconds));
+        try {
+            return mongoTemplate.findAndModify(claimable, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), RescreenJob.class);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the history after the job's checkpoint, in id order, against the
+     * version's additions. Batches run in parallel; the checkpoint only
+     * moves past batches that are finished along with all before them.
+     */
+    private void rescreen(RescreenJob job) {
+        String version = job.getId();
+        List<SanctionsMatchIndex.Entry> added = new ArrayList<>();
+        try (CloseableIterator<SanctionedIndividual> staged = mongoTemplate.stream(
+                Query.query(Criteria.where("listVersion").is(version)), SanctionedIndividual.class, ENTRIES_COLLECTION)) {
+            while (staged.hasNext()) {
+                SanctionedIndividual individual = staged.next();
+                SanctionsMatchIndex.Entry entry = new SanctionsMatchIndex.Entry(individual.getName(), individual.getSource());
+                if (!entry.normalizedName.isEmpty()) {
+                    added.add(entry);
+                }
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        long subjects = 0;
+        if (!added.isEmpty()) {
+            Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+            if (job.getCheckpoint() != null) {
+                query.addCriteria(Criteria.where("id").gt(job.getCheckpoint()));
+                logger.info("Resuming re-screening against {} after subject {}", version, job.getCheckpoint());
+            }
+            Deque<Batch> running = new ArrayDeque<>();
+            try (CloseableIterator<ScreenedSubject> history = mongoTemplate.stream(query, ScreenedSubject.class)) {
+                List<ScreenedSubject> batch = new ArrayList<>(rescreenBatchSize);
+                while (history.hasNext()) {
+                    batch.add(history.next());
+                    subjects++;
+                    if (batch.size() == rescreenBatchSize) {
+                        running.add(submit(batch, added, version));
+                        batch = new ArrayList<>(rescreenBatchSize);
+                        checkpoint(job, running, false);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    running.add(submit(batch, added, version));
+                }
+                checkpoint(job, running, true);
+            } catch (ExecutionException e) {
+                logger.error("Re-screening history against {} failed, will resume", version, e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // Done marker first: once out of pendingRescreens the rest is only cleanup
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is("sanctions_cache")),
+            new Update().pull("pendingRescreens", version), CacheMetadata.class);
+        mongoTemplate.remove(Query.query(Criteria.where("listVersion").is(version)), ENTRIES_COLLECTION);
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(version)), RescreenJob.class);
+        logger.info("Re-screened {} past subjects against {} added entries of {} in {} ms - {} alerts",
+            subjects, added.size(), version, System.currentTimeMillis() - start, job.getAlerts());
+    }
+
+    /**
+     * Collects the finished batches at the head of the queue (all of them
+     * when waiting) and stores how far they got, renewing the claim
+     */
+    private void checkpoint(RescreenJob job, Deque<Batch> running, boolean waitForAll)
+            throws ExecutionException, InterruptedException {
+        String reached = null;
+        while (!running.isEmpty() && (waitForAll || running.peek().hits.isDone())) {
+            Batch done = running.poll();
+            // Runs a batch still queued here (no-op once started), so this thread never waits on the pool it occupies
+            done.hits.run();
+            job.setAlerts(job.getAlerts() + done.hits.get());
+            reached = done.lastSubjectId;
+        }
+        if (reached != null) {
+            job.setCheckpoint(reached);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(job.getId()).and("owner").is(owner)),
+                new Update().set("checkpoint", reached).set("alerts", job.getAlerts())
+                    .set("claimedUntil", LocalDateTime.now().plusSeconds(claimSeconds)),
+                RescreenJob.class);
+        }
+    }
+
+    private Batch submit(List<ScreenedSubject> batch, List<SanctionsMatchIndex.Entry> added, String version) {
+        FutureTask<Integer> hits = new FutureTask<>(() -> rescreen(batch, added, version));
+        rescreenExecutor.execute(hits);
+        return new Batch(hits, batch.get(batch.size() - 1).getId());
+    }
+
+    private int rescreen(List<ScreenedSubject> batch, List<SanctionsMatchIndex.Entry> added, String version) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = null;
+        int hits = 0;
+        for (ScreenedSubject subject : batch) {
+            for (SanctionsMatchIndex.Entry entry : added) {
+                if (!SanctionsService.matchesName(subject.getId(), entry.normalizedName)) {
+                    continue;
+                }
+                logger.warn("Sanctions alert: previously screened {} matches new {} entry {}",
+                    subject.getName(), entry.source, entry.coreName);
+                // Deterministic id: a batch re-run after a resume overwrites instead of duplicating
+                SanctionsAlert alert = new SanctionsAlert(
+                    version + ":" + subject.getId() + ":" + entry.source + ":" + entry.normalizedName,
+                    subject.getName(), subject.getId(), subject.getLastScreened(),
+                    entry.coreName, entry.source, version, now);
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SanctionsAlert.class);
+                }
+                bulk.replaceOne(Query.query(Criteria.where("id").is(alert.getId())), alert,
+                    FindAndReplaceOptions.options().upsert());
+                hits++;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+        return hits;
+    }
+
+    private static final class Batch {
+        final FutureTask<Integer> hits;
+        final String lastSubjectId;
+
+        Batch(FutureTask<Integer> hits, String lastSubjectId) {
+            this.hits = hits;
+            this.lastSubjectId = lastSubjectId;
+        }
+    }
+}
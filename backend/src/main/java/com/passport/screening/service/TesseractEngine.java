@@ -0,0 +1,146 @@
+package com.passport.screening.service;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One initialized Tesseract engine.
+ * Unlike tess4j's Tesseract class (which re-reads the traineddata on every
+ * doOCR call) the native handle stays initialized for the engine's lifetime,
+ * so only SetImage/Recognize runs per page. Not thread-safe: use one engine
+ * per thread via TesseractEnginePool.
+ */
+public class TesseractEngine implements OcrEngine {
+
+    private final TessAPI api = TessAPI.INSTANCE;
+    private final ITessAPI.TessBaseAPI handle;
+    private ByteBuffer pixels;
+    private Profile activeProfile;
+    private int jobs;
+
+    public TesseractEngine(String datapath, String language, Profile defaultProfile) {
+        this.handle = api.TessBaseAPICreate();
+        if (api.TessBaseAPIInit3(handle, datapath, language) != 0) {
+            api.TessBaseAPIDelete(handle);
+            throw new IllegalStateException("Could not initialize Tesseract with language '" + language
+                + "' from " + datapath);
+        }
+        applyProfile(defaultProfile);
+    }
+
+    @Override
+    public Recognition recognize(BufferedImage image, int dpi, Profile profile) {
+        applyProfile(profile);
+        BufferedImage gray = toGray(image);
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        ByteBuffer buffer = pixelBuffer(width * height);
+
+        // Row by row so sub-images (crops) are copied correctly
+        Raster raster = gray.getRaster();
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            raster.getDataElements(0, y, width, 1, row);
+            buffer.put(row);
+        }
+        buffer.flip();
+
+        api.TessBaseAPISetImage(handle, buffer, width, height, 1, width);
+        api.TessBaseAPISetSourceResolution(handle, dpi);
+        Pointer textPointer = api.TessBaseAPIGetUTF8Text(handle);
+        String text = "";
+        if (textPointer != null) {
+            text = textPointer.getString(0, StandardCharsets.UTF_8.name());
+            api.TessDeleteText(textPointer);
+        }
+        int meanConfidence = api.TessBaseAPIMeanTextConf(handle);
+        api.TessBaseAPIClear(handle);
+        jobs++;
+        return new Recognition(text, meanConfidence);
+    }
+
+    @Override
+    public int getJobs() {
+        return jobs;
+    }
+
+    @Override
+    public void close() {
+        api.TessBaseAPIEnd(handle);
+        api.TessBaseAPIDelete(handle);
+    }
+
+    private void applyProfile(Profile profile) {
+        // Switching is cheap (no re-init), but skip it when nothing changed
+        if (profile.equals(activeProfile)) {
+            return;
+        }
+        api.TessBaseAPISetPageSegMode(handle, profile.pageSegMode);
+        api.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", profile.charWhitelist);
+        activeProfile = profile;
+    }
+
+    private ByteBuffer pixelBuffer(int size) {
+        // Reused between pages; only grows
+        if (pixels == null || pixels.capacity() < size) {
+            pixels = ByteBuffer.allocateDirect(size);
+        }
+        pixels.clear();
+        return pixels;
+    }
+
+    private static BufferedImage toGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return gray;
+    }
+
+    /**
+     * Per-call recognition settings (page segmentation mode + character whitelist)
+     */
+    public static final class Profile {
+        public final int pageSegMode;
+        public final String charWhitelist;
+
+        public Profile(int pageSegMode, String charWhitelist) {
+            this.pageSegMode = pageSegMode;
+            this.charWhitelist = charWhitelist;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Profile)) return false;
+            Profile other = (Profile) o;
+            return pageSegMode == other.pageSegMode && charWhitelist.equals(other.charWhitelist);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pageSegMode + charWhitelist.hashCode();
+        }
+    }
+
+    public static class Recognition {
+        public final String text;
+        // Tesseract mean word confidence, 0-100
+        public final int meanConfidence;
+
+        public Recognition(String text, int meanConfidence) {
+            this.text = text;
+            this.meanConfidence = meanConfidence;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.passport.screening.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of pre-initialized Tesseract engines.
+ * Engines are created up to app.ocr.pool.size; when all are in use callers
+ * wait up to the borrow timeout (or their deadline) and then get an
+ * OcrCapacityException, which the API reports as 503.
+ * With app.ocr.workers.enabled each engine is a separate worker JVM
+ * (OcrWorkerProcess), so native Tesseract memory and crashes stay out of the
+ * API process; workers are health-checked while idle and recycled after
+ * max-jobs or when over their memory cap.
+ */
+@Component
+public class TesseractEnginePool {
+    private static final Logger logger = LoggerFactory.getLogger(TesseractEnginePool.class);
+
+    @Value("${app.ocr.tessdata-path}")
+    private String tessdataPath;
+
+    @Value("${app.ocr.language:eng}")
+    private String language;
+
+    @Value("${app.ocr.page-seg-mode:3}")
+    private int pageSegMode;
+
+    @Value("${app.ocr.char-whitelist:ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz< }")
+    private String charWhitelist;
+
+    @Value("${app.ocr.pool.size:2}")
+    private int poolSize;
+
+    @Value("${app.ocr.pool.warm-up:1}")
+    private int warmUp;
+
+    @Value("${app.ocr.pool.borrow-timeout-ms:10000}")
+    private long borrowTimeoutMs;
+
+    @Value("${app.ocr.workers.enabled:false}")
+    private boolean workersEnabled;
+
+    @Value("${app.ocr.workers.max-jobs:200}")
+    private int workerMaxJobs;
+
+    // Resident memory cap per worker, enforced during jobs (kill) and between them (recycle)
+    @Value("${app.ocr.workers.max-rss-mb:768}")
+    private long workerMaxRssMb;
+
+    @Value("${app.ocr.workers.heap-mb:128}")
+    private int workerHeapMb;
+
+    @Value("${app.ocr.workers.job-timeout-ms:60000}")
+    private long workerJobTimeoutMs;
+
+    @Value("${app.ocr.workers.startup-timeout-ms:30000}")
+    private long workerStartupTimeoutMs;
+
+    @Value("${app.ocr.workers.java-command:${java.home}/bin/java}")
+    private String workerJavaCommand;
+
+    private TesseractEngine.Profile fullPageProfile;
+    private List<String> workerCommand;
+
+    private final LinkedBlockingDeque<OcrEngine> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong healthCheckFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(poolSize, true);
+        fullPageProfile = new TesseractEngine.Profile(pageSegMode, charWhitelist);
+        if (workersEnabled) {
+            workerCommand = buildWorkerCommand();
+        }
+        int toCreate = Math.min(warmUp, poolSize);
+        for (int i = 0; i < toCreate; i++) {
+            try {
+                idle.offer(newEngine());
+            } catch (Throwable e) {
+                // Native Tesseract missing on this machine - engines will be retried on demand
+                logger.warn("Tesseract warm-up failed ({}), engines will be created on demand", e.getMessage());
+                break;
+            }
+        }
+        logger.info("Tesseract engine pool ready - mode: {}, size: {}, warmed: {}, language: {}, psm: {}",
+            workersEnabled ? "worker processes" : "in-process", poolSize, idle.size(), language, pageSegMode);
+    }
+
+    /**
+     * @throws OcrCapacityException when no engine frees up in time
+     * @throws IOException when a worker process could not be started
+     */
+    public OcrEngine borrow(ScreeningDeadline deadline) throws IOException {
+        long waitMs = Math.min(borrowTimeoutMs, deadline.remainingMillis());
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire();
+        if (!acquired) {
+            waited.incrementAndGet();
+            try {
+                acquired = permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new OcrCapacityException("All " + poolSize + " OCR engines are busy");
+        }
+
+        OcrEngine engine = idle.pollFirst();
+        if (engine == null) {
+            try {
+                engine = newEngine();
+            } catch (IOException | RuntimeException | Error e) {
+                permits.release();
+                throw e;
+            }
+        }
+        borrowed.incrementAndGet();
+        return engine;
+    }
+
+    public void release(OcrEngine engine) {
+        if (engine.needsRecycling()) {
+            // Replaced lazily by the next borrow
+            recycled.incrementAndGet();
+            discard(engine);
+            return;
+        }
+        idle.offerFirst(engine);
+        permits.release();
+    }
+
+    /**
+     * Drop an engine that failed mid-recognition instead of returning it
+     */
+    public void discard(OcrEngine engine) {
+        try {
+            engine.close();
+        } catch (Throwable e) {
+            logger.warn("Failed to close discarded Tesseract engine: {}", e.getMessage());
+        }
+        created.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * Configured full-page settings (app.ocr.page-seg-mode / char-whitelist)
+     */
+    public TesseractEngine.Profile getFullPageProfile() {
+        return fullPageProfile;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", workersEnabled ? "workers" : "in-process");
+        stats.put("size", poolSize);
+        stats.put("created", created.get());
+        stats.put("idle", idle.size());
+        stats.put("in_use", poolSize - permits.availablePermits());
+        stats.put("queued", permits.getQueueLength());
+        stats.put("borrowed", borrowed.get());
+        stats.put("waited", waited.get());
+        stats.put("timeouts", timeouts.get());
+        long waits = waited.get();
+        stats.put("avg_wait_ms", waits == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / waits));
+        stats.put("recycled", recycled.get());
+        stats.put("health_check_failures", healthCheckFailures.get());
+        return stats;
+    }
+
+    /**
+     * Pings idle engines (worker processes) and drops the ones that no longer answer.
+     * An engine is only checked while holding a permit, so it cannot be borrowed mid-ping.
+     */
+    @Scheduled(fixedDelayString = "${app.ocr.workers.health-check-interval-ms:30000}")
+    public void checkIdleEngines() {
+        if (!workersEnabled) {
+            return;
+        }
+        int toCheck = idle.size();
+        for (int i = 0; i < toCheck && permits.tryAcquire(); i++) {
+            OcrEngine engine = idle.pollLast();
+            if (engine == null) {
+                permits.release();
+                break;
+            }
+            if (engine.isHealthy()) {
+                release(engine);
+            } else {
+                healthCheckFailures.incrementAndGet();
+                logger.warn("Discarding OCR worker that failed its health check");
+                discard(engine);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        OcrEngine engine;
+        while ((engine = idle.poll()) != null) {
+            engine.close();
+        }
+    }
+
+    private OcrEngine newEngine() throws IOException {
+        OcrEngine engine = workersEnabled
+            ? new OcrWorkerProcess(workerCommand, workerStartupTimeoutMs, workerJobTimeoutMs,
+                workerMaxRssMb * 1024 * 1024, workerMaxJobs)
+            : new TesseractEngine(tessdataPath, language, fullPageProfile);
+        created.incrementAndGet();
+        return engine;
+    }
+
+    /**
+     * Command line for a worker JVM running OcrWorkerMain from this
+     * application's own classpath (through PropertiesLauncher when packaged
+     * as a Spring Boot jar).
+     */
+    private List<String> buildWorkerCommand() {
+        List<String> command = new ArrayList<>();
+        command.add(workerJavaCommand);
+        command.add("-Xmx" + workerHeapMb + "m");
+        command.add("-XX:+UseSerialGC");
+        command.add("-Djava.awt.headless=true");
+        String classPath = System.getProperty("java.class.path");
+        if (isBootJar(classPath)) {
+            command.add("-Dloader.main=" + OcrWorkerMain.class.getName());
+            command.add("-cp");
+            command.add(classPath);
+            command.add("org.springframework.boot.loader.PropertiesLauncher");
+        } else {
+            command.add("-cp");
+            command.add(classPath);
+            command.add(OcrWorkerMain.class.getName());
+        }
+        command.add(tessdataPath);
+        command.add(language);
+        command.add(String.valueOf(pageSegMode));
+        command.add(charWhitelist);
+        return command;
+    }
+
+    private static boolean isBootJar(String classPath) {
+        if (!classPath.endsWith(".jar") || classPath.contains(File.pathSeparator)) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/classes/") != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
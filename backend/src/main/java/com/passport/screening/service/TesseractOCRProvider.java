@@ -0,0 +1,54 @@
+package com.passport.screening.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Full-page Tesseract OCR with DPI escalation. The text layer and MRZ strip
+ * run here only when the tika and mrzstrip providers are not in the chain.
+ */
+@Component
+public class TesseractOCRProvider implements OCRProvider {
+
+    private final OCRService ocrService;
+
+    @Value("${app.ocr.providers:tika,mrzstrip,tesseract}")
+    private String[] enabledProviders;
+
+    public TesseractOCRProvider(OCRService ocrService) {
+        this.ocrService = ocrService;
+    }
+
+    @Override
+    public OCRService.OCRResult extractText(byte[] fileBytes, String fileName) throws IOException {
+        return extractText(fileBytes, fileName, ScreeningDeadline.none());
+    }
+
+    @Override
+    public OCRService.OCRResult extractText(byte[] fileBytes, String fileName, ScreeningDeadline deadline) throws IOException {
+        return ocrService.extractPageText(fileBytes, fileName, deadline,
+                !inChain("tika"), !inChain("mrzstrip"));
+    }
+
+    private boolean inChain(String provider) {
+        return Arrays.stream(enabledProviders).anyMatch(p -> p.trim().equalsIgnoreCase(provider));
+    }
+
+    @Override
+    public String getName() {
+        return "Tesseract";
+    }
+
+    @Override
+    public int getCost() {
+        return 30;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+}
@@ -31,14 +31,25 @@ public class TikaOCRProvider implements OCRProvider {
             ByteArrayInputStream inputStream = new ByteArrayInputStream(fileBytes);
             String extractedText = tika.parseToString(inputStream);
 
-            String extractedName = extractNameFromText(extractedText);
-            double confidence = calculateConfidence(extractedName, extractedText);
+            String extractedName;
+            double confidence;
+            // A checksum-valid MRZ in the text layer is as good as it gets
+            MrzParser.MrzData mrz = MrzParser.parse(extractedText);
+            if (mrz != null && mrz.valid) {
+                extractedName = mrz.fullName();
+                confidence = 0.95;
+            } else {
+                extractedName = extractNameFromText(extractedText);
+                confidence = calculateConfidence(extractedName, extractedText);
+            }
 
             long processingTime = System.currentTimeMillis() - startTime;
 
             logger.info("Tika OCR extracted name: {} with confidence: {}", extractedName, confidence);
 
-            return new OCRService.OCRResult(extractedName, confidence, extractedText, processingTime / 1000.0);
+            OCRService.OCRResult result = new OCRService.OCRResult(extractedName, confidence, extractedText, processingTime / 1000.0);
+            result.path = OCRService.PATH_TEXT_LAYER;
+            return result;
         } catch (Exception e) {
             logger.error("Tika OCR processing failed", e);
             throw new IOException("Tika OCR processing failed", e);
@@ -50,6 +61,11 @@ public class TikaOCRProvider implements OCRProvider {
         return "Tika";
     }
 
+    @Override
+    public int getCost() {
+        return 10;
+    }
+
     @Override
     public boolean isAvailable() {
         return true; // Tika is always available as pure Java library
@@ -60,19 +76,12 @@ public class TikaOCRProvider implements OCRProvider {
             return "";
         }
 
+        // Only a labelled field counts: the first capitalised line is as likely
+        // a heading ("REPUBLIC OF ...") and would be screened as the name
         Matcher matcher = namePattern.matcher(text);
         if (matcher.find()) {
             return matcher.group(1).trim();
         }
-
-        String[] lines = text.split("\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (!line.isEmpty() && (isAllCaps(line) || isTitleCase(line)) && line.length() > 3) {
-                return line;
-            }
-        }
-
         return "";
     }
 
@@ -93,12 +102,4 @@ public class TikaOCRProvider implements OCRProvider {
 
         return Math.min(baseConfidence, 0.95);
     }
-
-    private boolean isAllCaps(String str) {
-        return str.equals(str.toUpperCase()) && str.matches("[A-Z\\s]+");
-    }
-
-    private boolean isTitleCase(String str) {
-        return str.matches("^([A-Z][a-z]+ )+[A-Z][a-z]+$");
-    }
 }
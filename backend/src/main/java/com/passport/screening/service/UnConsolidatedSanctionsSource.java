@@ -0,0 +1,38 @@
+package com.passport.screening.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * UN Security Council consolidated list (HTML page or XML export)
+ */
+@Component
+public class UnConsolidatedSanctionsSource extends HttpSanctionsSource {
+
+    // app.sanctions.source-url is the pre-multi-source key for the same list
+    @Value("${app.sanctions.un.url:${app.sanctions.source-url:}}")
+    private String url;
+
+    @Override
+    public String getName() {
+        return "UN";
+    }
+
+    @Override
+    protected String getUrl() {
+        return url;
+    }
+
+    @Override
+    public int parse(Fetched fetched, Consumer<String> names) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fetched.file), fetched.charset)) {
+            return SanctionsListParser.parse(reader, names);
+        }
+    }
+}
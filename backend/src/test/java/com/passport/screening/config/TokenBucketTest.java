@@ -0,0 +1,86 @@
+package com.passport.screening.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void startsFullAndRejectsOnceEmpty() {
+        TokenBucket bucket = new TokenBucket(3, 1, clock::get);
+
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isZero();
+        // 1 token per second, none left
+        assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void refillsProportionallyToElapsedTime() {
+        TokenBucket bucket = new TokenBucket(2, 4, clock::get);
+        bucket.tryConsume();
+        bucket.tryConsume();
+
+        // 4 per second: one token after 250 ms, 100 ms short of it the wait is the rest
+        advance(150);
+        assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        advance(100);
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isPositive();
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 10, clock::get);
+        bucket.tryConsume();
+
+        advance(60_000);
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isPositive();
+    }
+
+    @Test
+    void fractionalRefillRate() {
+        TokenBucket bucket = new TokenBucket(1, 0.5, clock::get);
+        bucket.tryConsume();
+
+        assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+        advance(1_999);
+        assertThat(bucket.tryConsume()).isPositive();
+        advance(1);
+        assertThat(bucket.tryConsume()).isZero();
+    }
+
+    @Test
+    void zeroRefillNeverRecovers() {
+        TokenBucket bucket = new TokenBucket(1, 0, clock::get);
+        bucket.tryConsume();
+
+        advance(3_600_000);
+        assertThat(bucket.tryConsume()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void touchAndConsumeRecordLastAccess() {
+        TokenBucket bucket = new TokenBucket(1, 1, clock::get);
+        advance(500);
+        bucket.touch();
+        assertThat(bucket.getLastAccessNanos()).isEqualTo(clock.get());
+
+        advance(500);
+        bucket.tryConsume();
+        assertThat(bucket.getLastAccessNanos()).isEqualTo(clock.get());
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,281 @@
+package com.passport.screening.controller;
+
+import com.passport.screening.service.SanctionsService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryScreeningCodecTest {
+
+    private static final int MAX_FRAME = 1024;
+
+    @Test
+    void readsNameRequest() throws IOException {
+        BinaryScreeningCodec.Request request = read(nameFrame(42, "José Ortega"));
+
+        assertThat(request.type).isEqualTo(BinaryScreeningCodec.TYPE_NAME);
+        assertThat(request.correlationId).isEqualTo(42);
+        assertThat(request.name).isEqualTo("José Ortega");
+    }
+
+    @Test
+    void readsDocumentRequest() throws IOException {
+        byte[] body = body(out -> {
+            out.writeByte(BinaryScreeningCodec.TYPE_DOCUMENT);
+            out.writeInt(-1);
+            out.writeUTF("scan.pdf");
+            out.writeInt(3);
+            out.write(new byte[] {1, 2, 3});
+        });
+
+        BinaryScreeningCodec.Request request = read(frame(body.length, body));
+
+        assertThat(request.correlationId).isEqualTo(-1);
+        assertThat(request.fileName).isEqualTo("scan.pdf");
+        assertThat(request.file).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void readsConsecutiveFramesThenNullAtCleanEnd() throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(concat(nameFrame(1, "A"), nameFrame(2, "B")));
+
+        assertThat(BinaryScreeningCodec.readRequest(in, MAX_FRAME).name).isEqualTo("A");
+        assertThat(BinaryScreeningCodec.readRequest(in, MAX_FRAME).name).isEqualTo("B");
+        assertThat(BinaryScreeningCodec.readRequest(in, MAX_FRAME)).isNull();
+    }
+
+    @Test
+    void frameLengthBoundaries() throws IOException {
+        assertInvalidFrame(frame(0, new byte[0]));
+        assertInvalidFrame(frame(-1, new byte[0]));
+        assertInvalidFrame(frame(MAX_FRAME + 1, new byte[0]));
+
+        // Exactly the limit is accepted
+        String name = repeat('x', MAX_FRAME - 1 - 4 - 2);
+        byte[] atLimit = nameFrame(7, name);
+        assertThat(atLimit.length).isEqualTo(4 + MAX_FRAME);
+        assertThat(read(atLimit).name).isEqualTo(name);
+    }
+
+    @Test
+    void truncatedFrameFails() {
+        byte[] frame = nameFrame(1, "Someone");
+
+        // Length prefix cut short, and body cut short
+        assertThatThrownBy(() -> read(Arrays.copyOf(frame, 2))).isInstanceOf(EOFException.class);
+        assertThatThrownBy(() -> read(Arrays.copyOf(frame, frame.length - 1))).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void documentLengthBoundaries() throws IOException {
+        assertThatThrownBy(() -> read(documentFrame(-1, 0))).hasMessageContaining("Invalid document length");
+        // Declared larger than the frame it sits in
+        assertThatThrownBy(() -> read(documentFrame(500, 0))).hasMessageContaining("Invalid document length");
+        // Within the frame but more than is left of it
+        assertThatThrownBy(() -> read(documentFrame(10, 5))).isInstanceOf(EOFException.class);
+        assertThat(read(documentFrame(0, 0)).file).isEmpty();
+    }
+
+    @Test
+    void derivedFrameLimitFitsTheLargestDocument() throws IOException {
+        int maxDocument = 100;
+        String fileName = repeat('f', 0xFFFF);
+        byte[] body = body(out -> {
+            out.writeByte(BinaryScreeningCodec.TYPE_DOCUMENT);
+            out.writeInt(1);
+            out.writeUTF(fileName);
+            out.writeInt(maxDocument);
+            out.write(new byte[maxDocument]);
+        });
+        int limit = BinaryScreeningCodec.maxFrameBytesFor(maxDocument);
+
+        assertThat(limit).isEqualTo(body.length);
+        BinaryScreeningCodec.Request request =
+            BinaryScreeningCodec.readRequest(new ByteArrayInputStream(frame(body.length, body)), limit);
+        assertThat(request.file).hasSize(maxDocument);
+        assertThat(BinaryScreeningCodec.maxFrameBytesFor(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void unknownTypeFails() {
+        byte[] body = body(out -> {
+            out.writeByte(9);
+            out.writeInt(1);
+        });
+
+        assertThatThrownBy(() -> read(frame(body.length, body))).hasMessageContaining("Unknown frame type: 9");
+    }
+
+    @Test
+    void writesResponseFrame() throws IOException {
+        BinaryScreeningCodec.Response response = new BinaryScreeningCodec.Response();
+        response.correlationId = 5;
+        response.status = BinaryScreeningCodec.STATUS_PARTIAL;
+        response.confidence = 0.75;
+        response.sanctioned = true;
+        response.extractedName = "JOHN SMITH";
+        response.entries = Arrays.asList(
+            new SanctionsService.SanctionEntry("JOHN SMITH", "OFAC"),
+            new SanctionsService.SanctionEntry("JON SMYTH", "UN"));
+
+        DataInputStream in = writeAndOpen(response);
+
+        assertThat(in.readInt()).isEqualTo(5);
+        assertThat(in.readByte()).isEqualTo(BinaryScreeningCodec.STATUS_PARTIAL);
+        assertThat(in.readFloat()).isEqualTo(0.75f);
+        assertThat(in.readBoolean()).isTrue();
+        assertThat(in.readUTF()).isEqualTo("JOHN SMITH");
+        assertThat(in.readUnsignedShort()).isEqualTo(2);
+        assertThat(in.readUTF()).isEqualTo("JOHN SMITH");
+        assertThat(in.readUTF()).isEqualTo("OFAC");
+        assertThat(in.readUTF()).isEqualTo("JON SMYTH");
+        assertThat(in.readUTF()).isEqualTo("UN");
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void missingEntryFieldsAreWrittenEmpty() throws IOException {
+        BinaryScreeningCodec.Response response = new BinaryScreeningCodec.Response();
+        response.entries = Collections.singletonList(new SanctionsService.SanctionEntry("JOHN SMITH", null));
+
+        DataInputStream in = writeAndOpen(response);
+
+        in.readInt();
+        in.readByte();
+        in.readFloat();
+        in.readBoolean();
+        in.readUTF();
+        assertThat(in.readUnsignedShort()).isEqualTo(1);
+        assertThat(in.readUTF()).isEqualTo("JOHN SMITH");
+        assertThat(in.readUTF()).isEmpty();
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void nullNameIsWrittenEmpty() throws IOException {
+        DataInputStream in = writeAndOpen(new BinaryScreeningCodec.Response());
+
+        in.readInt();
+        in.readByte();
+        in.readFloat();
+        in.readBoolean();
+        assertThat(in.readUTF()).isEmpty();
+        assertThat(in.readUnsignedShort()).isZero();
+    }
+
+    @Test
+    void entryCountIsCappedAtU16() throws IOException {
+        BinaryScreeningCodec.Response response = new BinaryScreeningCodec.Response();
+        response.entries = Collections.nCopies(0x10000 + 5, new SanctionsService.SanctionEntry("X", "UN"));
+
+        DataInputStream in = writeAndOpen(response);
+
+        in.readInt();
+        in.readByte();
+        in.readFloat();
+        in.readBoolean();
+        in.readUTF();
+        assertThat(in.readUnsignedShort()).isEqualTo(0xFFFF);
+        for (int i = 0; i < 0xFFFF; i++) {
+            in.readUTF();
+            in.readUTF();
+        }
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void stringLengthBoundaryOfModifiedUtf8() throws IOException {
+        BinaryScreeningCodec.Response response = new BinaryScreeningCodec.Response();
+        response.extractedName = repeat('a', 0xFFFF);
+        DataInputStream in = writeAndOpen(response);
+        in.skipBytes(4 + 1 + 4 + 1);
+        assertThat(in.readUTF()).hasSize(0xFFFF);
+
+        response.extractedName = repeat('a', 0x10000);
+        assertThatThrownBy(() -> BinaryScreeningCodec.writeResponse(new ByteArrayOutputStream(), response))
+            .isInstanceOf(UTFDataFormatException.class);
+    }
+
+    private static void assertInvalidFrame(byte[] frame) {
+        assertThatThrownBy(() -> read(frame)).hasMessageContaining("Invalid frame length");
+    }
+
+    private static BinaryScreeningCodec.Request read(byte[] frame) throws IOException {
+        return BinaryScreeningCodec.readRequest(new ByteArrayInputStream(frame), MAX_FRAME);
+    }
+
+    /**
+     * Opens the body of the single frame written for the response
+     */
+    private static DataInputStream writeAndOpen(BinaryScreeningCodec.Response response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryScreeningCodec.writeResponse(out, response);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(in.readInt()).isEqualTo(out.size() - 4);
+        return in;
+    }
+
+    private static byte[] nameFrame(int correlationId, String name) {
+        byte[] body = body(out -> {
+            out.writeByte(BinaryScreeningCodec.TYPE_NAME);
+            out.writeInt(correlationId);
+            out.writeUTF(name);
+        });
+        return frame(body.length, body);
+    }
+
+    /**
+     * Document frame declaring fileLength bytes while carrying only actualBytes
+     */
+    private static byte[] documentFrame(int fileLength, int actualBytes) {
+        byte[] body = body(out -> {
+            out.writeByte(BinaryScreeningCodec.TYPE_DOCUMENT);
+            out.writeInt(1);
+            out.writeUTF("f");
+            out.writeInt(fileLength);
+            out.write(new byte[actualBytes]);
+        });
+        return frame(body.length, body);
+    }
+
+    private static byte[] frame(int declaredLength, byte[] body) {
+        return concat(body(out -> out.writeInt(declaredLength)), body);
+    }
+
+    private static byte[] body(Writer writer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            writer.write(new DataOutputStream(buffer));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
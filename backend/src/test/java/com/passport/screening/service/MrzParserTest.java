@@ -0,0 +1,112 @@
+package com.passport.screening.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MrzParserTest {
+
+    // ICAO 9303 part 4 specimen
+    private static final String LINE1 = "P<UTOERIKSSON<<ANNA<MARIA<<<<<<<<<<<<<<<<<<<";
+    private static final String LINE2 = "L898902C36UTO7408122F1204159ZE184226B<<<<<10";
+
+    @Test
+    void checkDigitUsesWeights731AndLetterValues() {
+        assertThat(MrzParser.checkDigit("L898902C3")).isEqualTo(6);
+        assertThat(MrzParser.checkDigit("740812")).isEqualTo(2);
+        assertThat(MrzParser.checkDigit("120415")).isEqualTo(9);
+        assertThat(MrzParser.checkDigit("ZE184226B<<<<<")).isEqualTo(1);
+        assertThat(MrzParser.checkDigit("<<<<<<")).isZero();
+    }
+
+    @Test
+    void parsesValidTd3() {
+        MrzParser.MrzData data = MrzParser.parse("some header\n" + LINE1 + "\n" + LINE2 + "\n");
+
+        assertThat(data.valid).isTrue();
+        assertThat(data.checksPassed).isEqualTo(5);
+        assertThat(data.issuingState).isEqualTo("UTO");
+        assertThat(data.surname).isEqualTo("ERIKSSON");
+        assertThat(data.givenNames).isEqualTo("ANNA MARIA");
+        assertThat(data.documentNumber).isEqualTo("L898902C3");
+        assertThat(data.nationality).isEqualTo("UTO");
+        assertThat(data.birthDate).isEqualTo("740812");
+        assertThat(data.sex).isEqualTo('F');
+        assertThat(data.expiryDate).isEqualTo("120415");
+        assertThat(data.fullName()).isEqualTo("ANNA MARIA ERIKSSON");
+    }
+
+    @Test
+    void fixesLetterOForZeroAndIForOneInNumericFields() {
+        // Expiry 120415 read as I2O4I5
+        String misread = LINE2.substring(0, 21) + "I2O4I5" + LINE2.substring(27);
+
+        MrzParser.MrzData data = MrzParser.parse(LINE1 + "\n" + misread);
+
+        assertThat(data.valid).isTrue();
+        assertThat(data.expiryDate).isEqualTo("120415");
+    }
+
+    @Test
+    void doesNotTouchLettersOutsideNumericFields() {
+        // Document number may contain letters; an O there is not a zero
+        String line2 = "L8989O2C3" + LINE2.substring(9);
+
+        MrzParser.MrzData data = MrzParser.parse(LINE1 + "\n" + line2);
+
+        assertThat(data.documentNumber).isEqualTo("L8989O2C3");
+        assertThat(data.valid).isFalse();
+    }
+
+    @Test
+    void wrongCheckDigitIsReportedNotValid() {
+        String wrongBirthCheck = LINE2.substring(0, 19) + "3" + LINE2.substring(20);
+
+        MrzParser.MrzData data = MrzParser.parse(LINE1 + "\n" + wrongBirthCheck);
+
+        assertThat(data.valid).isFalse();
+        // Birth date and composite fail
+        assertThat(data.checksPassed).isEqualTo(3);
+    }
+
+    @Test
+    void fillerCheckDigitOnlyForEmptyPersonalNumber() {
+        String emptyPersonalNumber = "L898902C36UTO7408122F1204159<<<<<<<<<<<<<<<8";
+        assertThat(MrzParser.parse(LINE1 + "\n" + emptyPersonalNumber).valid).isTrue();
+
+        // Birth date 740803 has check digit 0, which a filler must not stand in for
+        String withZero = "L898902C36UTO7408030F1204159ZE184226B<<<<<10";
+        String withFiller = "L898902C36UTO740803<F1204159ZE184226B<<<<<10";
+        assertThat(MrzParser.parse(LINE1 + "\n" + withZero).valid).isTrue();
+        MrzParser.MrzData data = MrzParser.parse(LINE1 + "\n" + withFiller);
+        assertThat(data.valid).isFalse();
+        assertThat(data.checksPassed).isEqualTo(4);
+    }
+
+    @Test
+    void toleratesOcrNoiseAndShortenedFillers() {
+        String noisy = LINE1.substring(0, 30).toLowerCase() + " \n" + LINE2.replace("<<<<<", "<< <") + "\r\n";
+
+        MrzParser.MrzData data = MrzParser.parse(noisy);
+
+        assertThat(data).isNotNull();
+        assertThat(data.surname).isEqualTo("ERIKSSON");
+        assertThat(data.checksPassed).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void returnsNullWithoutMrzLines() {
+        assertThat(MrzParser.parse(null)).isNull();
+        assertThat(MrzParser.parse("")).isNull();
+        assertThat(MrzParser.parse("Surname: ERIKSSON\nGiven names: ANNA MARIA")).isNull();
+    }
+
+    @Test
+    void prefersValidCandidateOverEarlierPartialOne() {
+        String broken = LINE2.substring(0, 9) + "0" + LINE2.substring(10);
+
+        MrzParser.MrzData data = MrzParser.parse(LINE1 + "\n" + broken + "\n" + LINE1 + "\n" + LINE2);
+
+        assertThat(data.valid).isTrue();
+    }
+}
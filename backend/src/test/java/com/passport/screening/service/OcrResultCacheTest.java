@@ -0,0 +1,122 @@
+package com.passport.screening.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SuppressWarnings("unchecked")
+class OcrResultCacheTest {
+
+    private static final String KEY = "abc-v1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void diskTierKeepsNameButNotDocumentText() throws IOException {
+        OcrResultCache cache = cache();
+        cache.put(KEY, result());
+
+        String json = new String(Files.readAllBytes(entryFile()), "UTF-8");
+        assertThat(json).contains("ANNA MARIA ERIKSSON").doesNotContain("P<UTOERIKSSON");
+
+        OCRService.OCRResult fromDisk = cache().get(KEY);
+        assertThat(fromDisk.extractedName).isEqualTo("ANNA MARIA ERIKSSON");
+        assertThat(fromDisk.confidence).isEqualTo(0.95);
+        assertThat(fromDisk.path).isEqualTo("MRZ_STRIP");
+        assertThat(fromDisk.complete).isTrue();
+        assertThat(fromDisk.fullText).isNull();
+    }
+
+    @Test
+    void directoryAndFilesAreOwnerOnly() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        OcrResultCache cache = cache();
+        cache.put(KEY, result());
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir()))).isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(entryFile()))).isEqualTo("rw-------");
+    }
+
+    @Test
+    void readsDoNotExtendTheMaxAge() throws IOException {
+        cache().put(KEY, result());
+        // Stored two hours ago but read just now
+        OcrResultCache.DiskEntry entry = objectMapper.readValue(entryFile().toFile(), OcrResultCache.DiskEntry.class);
+        entry.storedAt -= TimeUnit.HOURS.toMillis(2);
+        objectMapper.writeValue(entryFile().toFile(), entry);
+
+        assertThat(cache().get(KEY)).isNull();
+        assertThat(entryFile().toFile()).doesNotExist();
+    }
+
+    @Test
+    void diskHitGoesToMemoryWithItsStoreTime() throws IOException {
+        cache().put(KEY, result());
+        OcrResultCache.DiskEntry entry = objectMapper.readValue(entryFile().toFile(), OcrResultCache.DiskEntry.class);
+        entry.storedAt -= TimeUnit.MINUTES.toMillis(59);
+        objectMapper.writeValue(entryFile().toFile(), entry);
+
+        OcrResultCache cache = cache();
+        assertThat(cache.get(KEY)).isNotNull();
+
+        Map<String, ?> memory = (Map<String, ?>) ReflectionTestUtils.getField(cache, "memory");
+        assertThat(ReflectionTestUtils.getField(memory.get(KEY), "storedAt")).isEqualTo(entry.storedAt);
+    }
+
+    @Test
+    void incompleteResultsAreNotCached() {
+        OcrResultCache cache = cache();
+        OCRService.OCRResult partial = result();
+        partial.complete = false;
+
+        cache.put(KEY, partial);
+
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(entryFile().toFile()).doesNotExist();
+    }
+
+    private OcrResultCache cache() {
+        OcrResultCache cache = new OcrResultCache(objectMapper, new OcrMetrics());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "memoryEntries", 10);
+        ReflectionTestUtils.setField(cache, "maxAgeHours", 1L);
+        ReflectionTestUtils.setField(cache, "diskEnabled", true);
+        ReflectionTestUtils.setField(cache, "diskDir", cacheDir().toString());
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", 1L << 20);
+        cache.init();
+        return cache;
+    }
+
+    private Path cacheDir() {
+        return tempDir.resolve("ocr-cache");
+    }
+
+    private Path entryFile() {
+        return new File(cacheDir().toFile(), KEY + ".json").toPath();
+    }
+
+    private static OCRService.OCRResult result() {
+        OCRService.OCRResult result = new OCRService.OCRResult("ANNA MARIA ERIKSSON", 0.95,
+            "P<UTOERIKSSON<<ANNA<MARIA<<<<<<<<<<<<<<<<<<<", 1.2);
+        result.path = "MRZ_STRIP";
+        result.pagesProcessed = 1;
+        result.totalPages = 1;
+        return result;
+    }
+}
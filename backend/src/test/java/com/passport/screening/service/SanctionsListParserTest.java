@@ -0,0 +1,121 @@
+package com.passport.screening.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SanctionsListParserTest {
+
+    @Test
+    void assemblesNumberedNamePartsAndDropsNa() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        int records = parse("<p>Name: 1: ABDUL 2: RAHMAN 3: na 4: na</p>"
+            + "<p>Name: 1: JOHN 2: PAUL 3: SMITH 4: na</p>", names);
+
+        assertThat(records).isEqualTo(2);
+        assertThat(names).containsExactly("ABDUL RAHMAN", "JOHN PAUL SMITH");
+    }
+
+    @Test
+    void recordEndsAtNextLabel() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("Name: 1: ALI 2: HASSAN 3: na 4: na Title: Mullah Designation: Governor "
+            + "Name (original script): something DOB: 1960", names);
+
+        assertThat(names).containsExactly("ALI HASSAN");
+    }
+
+    @Test
+    void nameInsideAPartIsKeptButNameBeforeOriginalScriptIsALabel() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("Name: 1: ABU 2: Name 3: na 4: na Name (original script): x", names);
+
+        assertThat(names).containsExactly("ABU Name");
+    }
+
+    @Test
+    void labelSplitAcrossMarkupStillMatches() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("<tr><td><strong>Name:</strong></td><td>1:<span>OMAR</span> 2:&nbsp;KHAN</td>"
+            + "<td>3: na 4: na</td></tr><td>Title:</td>", names);
+
+        assertThat(names).containsExactly("OMAR KHAN");
+    }
+
+    @Test
+    void decodesEntitiesAndKeepsUnknownOnesLiteral() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("Name: 1: JOS&#201; 2: D&#x27;ARCY 3: A&amp;B 4: X&foo; Nationality:", names);
+
+        assertThat(names).containsExactly("JOSÉ D'ARCY A&B X&foo;");
+    }
+
+    @Test
+    void skipsScriptStyleAndComments() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("<style>p:before{content:'Name: 1: BAD'}</style>"
+            + "<script>var s = '<p>Name: 1: WORSE</p>';</script>"
+            + "<!-- Name: 1: HIDDEN -->"
+            + "<p title=\"a > b\">Name: 1: GOOD 2: ONE</p>", names);
+
+        assertThat(names).containsExactly("GOOD ONE");
+    }
+
+    @Test
+    void lessThanThatIsNotMarkupIsText() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        parse("Name: 1: A<1 2: B", names);
+
+        assertThat(names).containsExactly("A<1 B");
+    }
+
+    @Test
+    void recordWithoutUsableNameIsCountedButNotEmitted() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        int records = parse("Name: 1: na 2: na 3: na 4: na Name: 1: X Name: 1: LEE", names);
+
+        assertThat(records).isEqualTo(3);
+        assertThat(names).containsExactly("LEE");
+    }
+
+    @Test
+    void parsesXmlExport() throws IOException {
+        List<String> names = new ArrayList<>();
+
+        int records = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<CONSOLIDATED_LIST dateGenerated=\"2024-01-01\"><INDIVIDUALS>"
+            + "<INDIVIDUAL><FIRST_NAME>JOHN</FIRST_NAME><SECOND_NAME>  PAUL\n SMITH </SECOND_NAME>"
+            + "<THIRD_NAME>na</THIRD_NAME><INDIVIDUAL_ALIAS><FIRST_NAME>ALIAS</FIRST_NAME></INDIVIDUAL_ALIAS>"
+            + "</INDIVIDUAL>"
+            + "<INDIVIDUAL><FIRST_NAME>A&amp;B</FIRST_NAME></INDIVIDUAL>"
+            + "</INDIVIDUALS></CONSOLIDATED_LIST>", names);
+
+        assertThat(records).isEqualTo(2);
+        assertThat(names).containsExactly("JOHN PAUL SMITH", "A&B");
+    }
+
+    @Test
+    void malformedXmlFails() {
+        assertThatThrownBy(() -> parse("<CONSOLIDATED_LIST><INDIVIDUAL><FIRST_NAME>X</INDIVIDUAL>",
+            new ArrayList<String>()))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static int parse(String content, List<String> names) throws IOException {
+        return SanctionsListParser.parse(new StringReader(content), names::add);
+    }
+}
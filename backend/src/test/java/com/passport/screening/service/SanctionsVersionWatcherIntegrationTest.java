@@ -0,0 +1,134 @@
+package com.passport.screening.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * SanctionsVersionWatcher against real MongoDB servers: a single-node
+ * replica set (MongoDBContainer starts mongod with --replSet) and a
+ * standalone one. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SanctionsVersionWatcherIntegrationTest {
+
+    private static final DockerImageName MONGO = DockerImageName.parse("mongo:6.0");
+
+    @Container
+    private static final MongoDBContainer REPLICA_SET = new MongoDBContainer(MONGO);
+
+    @Container
+    private static final GenericContainer<?> STANDALONE = new GenericContainer<>(MONGO).withExposedPorts(27017);
+
+    private MongoClient client;
+    private SanctionsVersionWatcher watcher;
+
+    @AfterEach
+    void tearDown() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+        if (client != null) {
+            client.getDatabase("screening").drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void insertAndUpdateOfMetadataReloadTheIndex() {
+        SanctionsMatchIndex index = startWatching(REPLICA_SET.getReplicaSetUrl());
+
+        publish("v1", null);
+        verify(index, timeout(10000).times(2)).load();
+        assertThat(index.getVersion()).isEqualTo("v1");
+
+        // Published but not swapped in yet: no reload until the swap completes
+        metadata().updateOne(Filters.eq("_id", "sanctions_cache"),
+            Updates.combine(Updates.set("sourceVersion", "v2"), Updates.set("pendingSwap", "staging_v2")));
+        verify(index, after(1000).times(2)).load();
+        metadata().updateOne(Filters.eq("_id", "sanctions_cache"), Updates.unset("pendingSwap"));
+        verify(index, timeout(10000).times(3)).load();
+        assertThat(index.getVersion()).isEqualTo("v2");
+    }
+
+    @Test
+    void reopensAfterInvalidateAndPicksUpVersionsPublishedMeanwhile() {
+        SanctionsMatchIndex index = startWatching(REPLICA_SET.getReplicaSetUrl());
+        publish("v1", null);
+        verify(index, timeout(10000).times(2)).load();
+
+        // Dropping the collection invalidates the stream
+        metadata().drop();
+        publish("v2", null);
+
+        verify(index, timeout(10000).times(3)).load();
+        assertThat(index.getVersion()).isEqualTo("v2");
+        assertThat(ReflectionTestUtils.getField(watcher, "running")).isEqualTo(true);
+
+        publish("v3", null);
+        verify(index, timeout(10000).times(4)).load();
+        assertThat(index.getVersion()).isEqualTo("v3");
+    }
+
+    @Test
+    void standaloneServerFallsBackToPolling() throws InterruptedException {
+        SanctionsMatchIndex index = startWatching(
+            "mongodb://" + STANDALONE.getHost() + ":" + STANDALONE.getMappedPort(27017));
+
+        // $changeStream fails with 40573 and the watcher thread ends
+        Thread thread = (Thread) ReflectionTestUtils.getField(watcher, "watcher");
+        thread.join(10000);
+        assertThat(thread.isAlive()).isFalse();
+
+        publish("v1", null);
+        index.checkPublishedVersion();
+        assertThat(index.getVersion()).isEqualTo("v1");
+    }
+
+    /**
+     * Loads an (empty) index as startup does and starts the watcher on it
+     */
+    private SanctionsMatchIndex startWatching(String url) {
+        client = MongoClients.create(url);
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "screening");
+        SanctionsMatchIndex index = spy(new SanctionsMatchIndex(mongoTemplate));
+        index.load();
+        watcher = new SanctionsVersionWatcher(mongoTemplate, index);
+        ReflectionTestUtils.setField(watcher, "enabled", true);
+        watcher.start();
+        return index;
+    }
+
+    private void publish(String version, String pendingSwap) {
+        metadata().replaceOne(Filters.eq("_id", "sanctions_cache"),
+            new Document("_id", "sanctions_cache")
+                .append("sourceVersion", version)
+                .append("totalRecords", 0L)
+                .append("pendingSwap", pendingSwap),
+            new ReplaceOptions().upsert(true));
+    }
+
+    private MongoCollection<Document> metadata() {
+        return client.getDatabase("screening").getCollection("cache_metadata");
+    }
+}
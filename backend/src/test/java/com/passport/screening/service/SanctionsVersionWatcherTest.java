@@ -0,0 +1,174 @@
+package com.passport.screening.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Error handling of the change stream loop against a mocked driver; the
+ * behaviour against a real replica set is covered by
+ * SanctionsVersionWatcherIntegrationTest.
+ */
+@SuppressWarnings("unchecked")
+class SanctionsVersionWatcherTest {
+
+    private static final BsonDocument TOKEN = new BsonDocument("_data", new BsonString("8263A1"));
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+    private final ChangeStreamIterable<Document> stream = mock(ChangeStreamIterable.class);
+    private final SanctionsMatchIndex matchIndex = mock(SanctionsMatchIndex.class);
+    private SanctionsVersionWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollection("cache_metadata")).thenReturn(collection);
+        when(collection.watch(anyList())).thenReturn(stream);
+        when(stream.fullDocument(any())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any())).thenReturn(stream);
+        when(stream.resumeAfter(any())).thenReturn(stream);
+        when(matchIndex.isLoaded()).thenReturn(true);
+        when(matchIndex.getVersion()).thenReturn("v1");
+        watcher = new SanctionsVersionWatcher(mongoTemplate, matchIndex);
+        ReflectionTestUtils.setField(watcher, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    void notAReplicaSetStopsWatchingAndLeavesItToPolling() throws InterruptedException {
+        when(stream.cursor()).thenThrow(commandError(40573));
+
+        watcher.start();
+
+        Thread thread = (Thread) ReflectionTestUtils.getField(watcher, "watcher");
+        thread.join(5000);
+        assertThat(thread.isAlive()).isFalse();
+        verify(stream, times(1)).cursor();
+        verify(matchIndex, never()).load();
+    }
+
+    @Test
+    void reloadsOnNewVersionButNotWhileSwapIsPending() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor();
+        when(cursor.tryNext()).thenReturn(
+            change(OperationType.UPDATE, new Document("sourceVersion", "v2").append("pendingSwap", "staging_v2")),
+            change(OperationType.UPDATE, new Document("sourceVersion", "v1")),
+            change(OperationType.UPDATE, new Document("sourceVersion", "v2")))
+            .thenAnswer(invocation -> idle());
+        when(stream.cursor()).thenReturn(cursor);
+
+        watcher.start();
+
+        verify(matchIndex, timeout(5000).times(1)).load();
+        verify(matchIndex, after(200).times(1)).load();
+    }
+
+    @Test
+    void resumesAfterDroppedConnectionAndStartsFreshWhenHistoryIsLost() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> first = openCursor();
+        when(first.tryNext())
+            .thenReturn(change(OperationType.UPDATE, new Document("sourceVersion", "v2")))
+            .thenThrow(new MongoSocketReadException("connection reset", new ServerAddress()));
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> fresh = openCursor();
+        when(fresh.tryNext()).thenAnswer(invocation -> idle());
+        when(stream.cursor())
+            .thenReturn(first)
+            // Resuming from TOKEN: fell off the oplog meanwhile
+            .thenThrow(commandError(286))
+            .thenReturn(fresh);
+
+        watcher.start();
+
+        // Fresh stream at start, after the lost history and on the new fresh stream
+        verify(matchIndex, timeout(10000).times(3)).checkPublishedVersion();
+        verify(stream, times(1)).resumeAfter(TOKEN);
+        verify(stream, times(3)).cursor();
+        verify(matchIndex, times(1)).load();
+    }
+
+    @Test
+    void reopensFreshStreamAfterInvalidate() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> invalidated = openCursor();
+        when(invalidated.tryNext()).thenReturn(change(OperationType.INVALIDATE, null));
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> fresh = openCursor();
+        when(fresh.tryNext()).thenAnswer(invocation -> idle());
+        when(stream.cursor()).thenReturn(invalidated, fresh);
+
+        watcher.start();
+
+        verify(matchIndex, timeout(5000).times(2)).checkPublishedVersion();
+        verify(stream, never()).resumeAfter(any());
+    }
+
+    @Test
+    void reopensFreshStreamWhenServerClosedTheCursor() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> closed = mock(MongoChangeStreamCursor.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> fresh = openCursor();
+        when(fresh.tryNext()).thenAnswer(invocation -> idle());
+        when(stream.cursor()).thenReturn(closed, fresh);
+
+        watcher.start();
+
+        verify(matchIndex, timeout(5000).times(2)).checkPublishedVersion();
+        verify(stream, never()).resumeAfter(any());
+    }
+
+    private static MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mock(MongoChangeStreamCursor.class);
+        when(cursor.getServerCursor()).thenReturn(new ServerCursor(1L, new ServerAddress()));
+        return cursor;
+    }
+
+    private static ChangeStreamDocument<Document> change(OperationType type, Document metadata) {
+        return new ChangeStreamDocument<>(type, TOKEN, null, null, metadata,
+            new BsonDocument("_id", new BsonString("sanctions_cache")), null, null, null, null);
+    }
+
+    /**
+     * An empty tryNext without spinning the test CPU
+     */
+    private static ChangeStreamDocument<Document> idle() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        return null;
+    }
+
+    private static MongoCommandException commandError(int code) {
+        return new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+            .append("code", new BsonInt32(code))
+            .append("errmsg", new BsonString("error " + code)), new ServerAddress());
+    }
+}